@@ -30,33 +30,27 @@ public abstract class AbstractDecisionTreeFacts implements DecisionTreeFacts {
     @Override
     public String getString(final String key) throws InvalidFactException {
         final Object value = get(key);
-
-        try {
-            return (String) value;
-        } catch (ClassCastException e) {
+        if (value != null && !(value instanceof String)) {
             throw new InvalidFactDataypeException(key, value, String.class, value.getClass());
         }
+        return (String) value;
     }
 
     @Override
     public Integer getInt(final String key) throws InvalidFactException {
         final Object value = get(key);
-
-        try {
-            return (Integer) value;
-        } catch (ClassCastException e) {
+        if (value != null && !(value instanceof Integer)) {
             throw new InvalidFactDataypeException(key, value, Integer.class, value.getClass());
         }
+        return (Integer) value;
     }
 
     @Override
     public Boolean getBoolean(final String key) throws InvalidFactException {
         final Object value = get(key);
-
-        try {
-            return (Boolean) value;
-        } catch (ClassCastException e) {
+        if (value != null && !(value instanceof Boolean)) {
             throw new InvalidFactDataypeException(key, value, Boolean.class, value.getClass());
         }
+        return (Boolean) value;
     }
 }
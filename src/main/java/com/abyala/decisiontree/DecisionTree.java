@@ -19,31 +19,532 @@
 
 package com.abyala.decisiontree;
 
+import com.abyala.decisiontree.engine.Engine;
+import com.abyala.decisiontree.engine.EngineCompiler;
+import com.abyala.decisiontree.engine.NodeCompiler;
+import com.abyala.decisiontree.engine.NodeEngine;
+import com.abyala.decisiontree.engine.ProfileGuidedCompiler;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.jfr.EvaluationEvent;
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
+import com.abyala.decisiontree.metrics.InstrumentedEngine;
 import com.abyala.decisiontree.exceptions.InvalidFactException;
 import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.ResultNode;
 import com.abyala.decisiontree.types.InputType;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * User: abyala
  * Date: 6/14/12
  */
 public class DecisionTree {
+    /**
+     * Rows per task used by {@link #evaluateBatchInParallel(FactBatch)}.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id = NEXT_ID.incrementAndGet();
+
     private final Map<String, InputType> inputTypes;
+    private final InputSchema schema;
     private final Node rootNode;
+    private final ResultNode[] leaves;
+    private volatile Engine engine;
+    private EngineCompiler compiler = new NodeCompiler();
+    private volatile int eventSampleInterval;
 
     public DecisionTree(final Node rootNode, final Collection<InputType> inputs) {
+        this(rootNode, inputs, Collections.<ResultNode>emptyList());
+    }
+
+    /**
+     * Creates a tree whose leaves are numbered by their position in the list, which must match each
+     * leaf's ID.
+     */
+    public DecisionTree(final Node rootNode, final Collection<InputType> inputs, final List<ResultNode> leaves) {
+        this.leaves = leaves.toArray(new ResultNode[leaves.size()]);
+        for (int id = 0; id < this.leaves.length; id++) {
+            if (this.leaves[id].getId() != id) {
+                throw new IllegalArgumentException("Leaf at position " + id + " has ID " + this.leaves[id].getId());
+            }
+        }
         this.rootNode = rootNode;
+        this.engine = new NodeEngine(rootNode);
         inputTypes = new HashMap<String, InputType>();
         for (InputType input : inputs) {
             inputTypes.put(input.getName(), input);
         }
+        schema = new InputSchema(inputs);
     }
 
     public Object evaluate(DecisionTreeFacts facts) throws InvalidFactException {
-        return rootNode.evaluate(facts);
+        return resolve(facts).createResult();
+    }
+
+    private ResultNode resolve(final DecisionTreeFacts facts) throws InvalidFactException {
+        final int interval = eventSampleInterval;
+        if (interval == 0 || ThreadLocalRandom.current().nextInt(interval) != 0) {
+            return engine.resolve(facts);
+        }
+        return resolveRecorded(facts);
+    }
+
+    /**
+     * Evaluates the facts inside a Flight Recorder event. The path depth is measured after the event ends,
+     * so that it does not count towards the recorded duration.
+     */
+    private ResultNode resolveRecorded(final DecisionTreeFacts facts) throws InvalidFactException {
+        final EvaluationEvent event = new EvaluationEvent();
+        if (!event.isEnabled()) {
+            return engine.resolve(facts);
+        }
+
+        event.begin();
+        // Stays ERROR if resolve throws anything other than an InvalidFactException
+        String outcome = EvaluationEvent.ERROR;
+        ResultNode leaf = null;
+        try {
+            leaf = engine.resolve(facts);
+            outcome = Evaluation.Status.MATCHED.name();
+            return leaf;
+        } catch (NoMappingDeclaredException e) {
+            outcome = Evaluation.Status.NO_MAPPING.name();
+            throw e;
+        } catch (MissingFactException e) {
+            outcome = Evaluation.Status.MISSING_FACT.name();
+            throw e;
+        } catch (InvalidFactException e) {
+            outcome = Evaluation.Status.INVALID_FACT.name();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.treeId = id;
+                event.outcome = outcome;
+                event.leafId = leaf == null ? -1 : leaf.getId();
+                event.depth = depthOf(facts);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes the facts visit, up to and including one that fails. Facts that threw an
+     * unexpected exception from resolve throw it again here, so the depth stops at the steps taken before it
+     * rather than replacing the exception being reported.
+     */
+    private int depthOf(final DecisionTreeFacts facts) {
+        final EvaluationTrace trace = new EvaluationTrace();
+        try {
+            rootNode.walk(facts, trace);
+        } catch (RuntimeException e) {
+            // Reported by the evaluation itself
+        }
+        return trace.getStepCount();
+    }
+
+    /**
+     * Evaluates the facts without throwing for a missing fact, an unmapped value or a fact of the wrong type,
+     * returning an evaluation that holds the outcome and, if matched, the leaf.
+     */
+    public Evaluation tryEvaluate(final DecisionTreeFacts facts) {
+        final Evaluation evaluation = new Evaluation();
+        engine.tryResolve(facts, evaluation);
+        return evaluation;
+    }
+
+    /**
+     * Records the outcome of evaluating the facts in an evaluation owned by the caller, which may be reused,
+     * and returns its status. Nothing is allocated unless a fact has the wrong type.
+     */
+    public Evaluation.Status tryResolve(final DecisionTreeFacts facts, final Evaluation evaluation) {
+        engine.tryResolve(facts, evaluation);
+        return evaluation.getStatus();
+    }
+
+    /**
+     * Evaluates the facts like resolve, recording each node visited and the leaf reached in the trace,
+     * which is cleared first and may be reused. Tracing walks the tree's nodes whichever engine it was
+     * compiled with; evaluations that are not traced are unaffected, so a sample of requests can be traced.
+     */
+    public ResultNode trace(final DecisionTreeFacts facts, final EvaluationTrace trace) throws InvalidFactException {
+        trace.clear();
+        final ResultNode leaf = rootNode.walk(facts, trace);
+        if (leaf == null) {
+            throw trace.getFailure();
+        }
+        return leaf;
+    }
+
+    /**
+     * Sets the attributes of the leaf the facts reach onto a result object owned by the caller, which may
+     * be reused across evaluations, and returns it. Requires a result class with setters.
+     */
+    public <T> T evaluateInto(final DecisionTreeFacts facts, final T target) throws InvalidFactException {
+        resolve(facts).applyTo(target);
+        return target;
+    }
+
+    /**
+     * Returns the ID of the leaf the facts reach, without creating its result. Combined with facts that
+     * do not allocate, such as {@link IndexedDecisionTreeFacts}, this evaluation allocates nothing.
+     * Use {@link #getLeaf(int)} to read the leaf's attribute values.
+     */
+    public int evaluateLeafId(final DecisionTreeFacts facts) throws InvalidFactException {
+        return resolve(facts).getId();
+    }
+
+    /**
+     * Returns the leaf with the given ID, whose typed attribute values are available through
+     * {@link ResultNode#getValue(int)} and {@link ResultNode#getValue(String)}. Throws an
+     * IllegalArgumentException if no leaf has the ID.
+     */
+    public ResultNode getLeaf(final int id) {
+        if (id < 0 || id >= leaves.length) {
+            throw new IllegalArgumentException("Leaf ID " + id + " is out of range 0 to " + (leaves.length - 1));
+        }
+        return leaves[id];
+    }
+
+    public int getLeafCount() {
+        return leaves.length;
+    }
+
+    /**
+     * Evaluates every row of the batch, returning the results in row order. The tree is walked once per
+     * node for the whole batch rather than once per row. Batches are always resolved by the tree's nodes,
+     * whichever engine it was compiled with.
+     */
+    public Object[] evaluateBatch(final FactBatch batch) throws InvalidFactException {
+        final BatchChunk chunk = new BatchChunk(checkSchema(batch), 0, batch.size(), true);
+        chunk.call();
+        return chunk.results;
+    }
+
+    /**
+     * Returns the leaf reached by every row of the batch, in row order.
+     */
+    public ResultNode[] resolveBatch(final FactBatch batch) throws InvalidFactException {
+        final BatchChunk chunk = new BatchChunk(checkSchema(batch), 0, batch.size(), false);
+        chunk.call();
+        return chunk.leaves;
+    }
+
+    /**
+     * Evaluates the batch on the common fork/join pool in chunks of {@link #DEFAULT_CHUNK_SIZE} rows.
+     */
+    public Object[] evaluateBatchInParallel(final FactBatch batch) throws InvalidFactException {
+        return evaluateBatch(batch, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Evaluates the batch in chunks of chunkSize rows, each run as a task on the executor, and returns the
+     * results in row order. The calling thread evaluates the first chunk itself and then waits for the rest.
+     * On a ForkJoinPool the chunks are fork/join tasks, so a caller that is a worker of the same pool runs
+     * queued chunks while it waits instead of blocking its worker thread. Each chunk works on its own range
+     * of rows and its own scratch arrays, so tasks share nothing but the immutable tree and the batch. If
+     * any chunk fails, the chunks not yet started are skipped and the first failure in row order among the
+     * chunks that ran is thrown.
+     */
+    public Object[] evaluateBatch(final FactBatch batch, final Executor executor, final int chunkSize) throws InvalidFactException {
+        return runChunks(batch, executor, chunkSize, true).results;
+    }
+
+    /**
+     * Returns the leaf reached by every row of the batch, in row order, splitting the work across the
+     * executor as {@link #evaluateBatch(FactBatch, Executor, int)} does.
+     */
+    public ResultNode[] resolveBatch(final FactBatch batch, final Executor executor, final int chunkSize) throws InvalidFactException {
+        return runChunks(batch, executor, chunkSize, false).leaves;
+    }
+
+    private BatchChunk runChunks(final FactBatch batch, final Executor executor, final int chunkSize, final boolean createResults) throws InvalidFactException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+
+        final BatchChunk first = new BatchChunk(checkSchema(batch), 0, Math.min(chunkSize, batch.size()), createResults);
+        if (executor instanceof ForkJoinPool) {
+            forkChunks(first, batch, (ForkJoinPool) executor, chunkSize);
+            return first;
+        }
+
+        final List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+        for (int start = chunkSize; start < batch.size(); start += chunkSize) {
+            final FutureTask<Void> task = new FutureTask<Void>(first.next(start, Math.min(start + chunkSize, batch.size())));
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        try {
+            first.call();
+            for (FutureTask<Void> task : tasks) {
+                task.get();
+            }
+            return first;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvalidFactException) {
+                throw (InvalidFactException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            for (FutureTask<Void> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Forks every chunk after the first, from the pool's own worker if the caller is one, runs the first
+     * chunk, and joins the rest newest first, which lets a worker pop its own forks back off its queue.
+     */
+    private void forkChunks(final BatchChunk first, final FactBatch batch, final ForkJoinPool pool, final int chunkSize) throws InvalidFactException {
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<ChunkTask> tasks = new ArrayList<ChunkTask>();
+        tasks.add(new ChunkTask(first, failed));
+        final boolean inPool = ForkJoinTask.getPool() == pool;
+        for (int start = chunkSize; start < batch.size(); start += chunkSize) {
+            final ChunkTask task = new ChunkTask(first.next(start, Math.min(start + chunkSize, batch.size())), failed);
+            tasks.add(task);
+            if (inPool) {
+                task.fork();
+            } else {
+                pool.execute(task);
+            }
+        }
+
+        tasks.get(0).compute();
+        for (int i = tasks.size() - 1; i > 0; i--) {
+            tasks.get(i).quietlyJoin();
+        }
+        for (ChunkTask task : tasks) {
+            if (task.failure != null) {
+                throw task.failure;
+            }
+            final Throwable error = task.getException();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            }
+        }
+    }
+
+    /**
+     * Runs a chunk as a fork/join task, keeping its InvalidFactException for the caller to throw in row
+     * order. Chunks that start after another has failed do nothing.
+     */
+    private static class ChunkTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+        private final BatchChunk chunk;
+        private final AtomicBoolean failed;
+        private InvalidFactException failure;
+
+        ChunkTask(final BatchChunk chunk, final AtomicBoolean failed) {
+            this.chunk = chunk;
+            this.failed = failed;
+        }
+
+        @Override
+        protected void compute() {
+            if (failed.get()) {
+                return;
+            }
+            try {
+                chunk.call();
+            } catch (InvalidFactException e) {
+                failure = e;
+                failed.set(true);
+            } catch (RuntimeException e) {
+                failed.set(true);
+                throw e;
+            }
+        }
+    }
+
+    private FactBatch checkSchema(final FactBatch batch) {
+        if (batch.getSchema() != schema) {
+            throw new IllegalArgumentException("Batch was not created from this tree's schema");
+        }
+        return batch;
+    }
+
+    /**
+     * Resolves the rows [from, to) of a batch into arrays shared by every chunk of the batch, and optionally
+     * creates their results.
+     */
+    private class BatchChunk implements Callable<Void> {
+        private final FactBatch batch;
+        private final int from;
+        private final int to;
+        private final ResultNode[] leaves;
+        private final Object[] results;
+
+        BatchChunk(final FactBatch batch, final int from, final int to, final boolean createResults) {
+            this(batch, from, to, new ResultNode[batch.size()], createResults ? new Object[batch.size()] : null);
+        }
+
+        private BatchChunk(final FactBatch batch, final int from, final int to, final ResultNode[] leaves, final Object[] results) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.leaves = leaves;
+            this.results = results;
+        }
+
+        BatchChunk next(final int from, final int to) {
+            return new BatchChunk(batch, from, to, leaves, results);
+        }
+
+        @Override
+        public Void call() throws InvalidFactException {
+            if (from == to) {
+                return null;
+            }
+
+            final int[] rows = new int[to - from];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = from + i;
+            }
+            rootNode.resolveBatch(batch, rows, 0, rows.length, leaves);
+
+            if (results != null) {
+                for (int row = from; row < to; row++) {
+                    results[row] = leaves[row].createResult();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the engine used to evaluate this tree with one built by the given compiler. Evaluations
+     * already in progress finish on the previous engine.
+     */
+    public synchronized DecisionTree compile(final EngineCompiler compiler) {
+        final Engine compiled = compiler.compile(rootNode);
+        final DecisionTreeMetrics metrics = getMetrics();
+        this.engine = metrics == null ? compiled : new InstrumentedEngine(rootNode, compiled, metrics);
+        this.compiler = compiler;
+        return this;
+    }
+
+    /**
+     * Recompiles the tree with a {@link ProfileGuidedCompiler} over the profile, delegating to the compiler
+     * the tree was last compiled with. A tree already compiled with a profile is recompiled with the new
+     * profile and the same delegate.
+     */
+    public synchronized DecisionTree optimize(final DecisionTreeMetrics profile) {
+        EngineCompiler delegate = compiler;
+        if (delegate instanceof ProfileGuidedCompiler) {
+            delegate = ((ProfileGuidedCompiler) delegate).getDelegate();
+        }
+        return compile(new ProfileGuidedCompiler(profile, delegate));
+    }
+
+    /**
+     * Returns the compiler the tree was last compiled with, or a {@link NodeCompiler} if it never was.
+     */
+    public synchronized EngineCompiler getCompiler() {
+        return compiler;
+    }
+
+    /**
+     * Starts counting branches taken, leaves returned, failures and evaluation latency for evaluations of
+     * single facts, returning the metrics they are recorded in. Every evaluation's branches are counted.
+     */
+    public DecisionTreeMetrics enableMetrics() {
+        return enableMetrics(DecisionTreeMetrics.DEFAULT_BRANCH_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Starts counting leaves returned, failures and evaluation latency for evaluations of single facts, and
+     * the branches taken by a random one in every branchSampleInterval of them, returning the metrics they
+     * are recorded in. Evaluations still run on the compiled engine and are timed around it; counting the
+     * branches walks the tree's nodes once more, after the evaluation is timed. Batches are not
+     * instrumented. Metrics already enabled are kept.
+     */
+    public synchronized DecisionTreeMetrics enableMetrics(final int branchSampleInterval) {
+        DecisionTreeMetrics metrics = getMetrics();
+        if (metrics == null) {
+            metrics = new DecisionTreeMetrics(leaves.length, branchSampleInterval);
+            engine = new InstrumentedEngine(rootNode, engine, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops instrumenting evaluations, restoring the engine they used before.
+     */
+    public synchronized void disableMetrics() {
+        final Engine current = engine;
+        if (current instanceof InstrumentedEngine) {
+            engine = ((InstrumentedEngine) current).getDelegate();
+        }
+    }
+
+    /**
+     * Returns the metrics evaluations are recorded in, or null if they are not enabled.
+     */
+    public DecisionTreeMetrics getMetrics() {
+        final Engine current = engine;
+        return current instanceof InstrumentedEngine ? ((InstrumentedEngine) current).getMetrics() : null;
+    }
+
+    /**
+     * Emits a Flight Recorder evaluation event for a random one in every interval evaluations through
+     * evaluate, evaluateInto and evaluateLeafId, if the event is enabled in the running recording. An
+     * interval of 1 samples every evaluation, and 0, the default, samples none.
+     */
+    public DecisionTree setEventSampleInterval(final int interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("Sample interval must not be negative: " + interval);
+        }
+        this.eventSampleInterval = interval;
+        return this;
+    }
+
+    public int getEventSampleInterval() {
+        return eventSampleInterval;
+    }
+
+    /**
+     * Returns an ID unique among the trees created by this JVM, used to identify the tree in Flight
+     * Recorder events.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the tree's inputs numbered by slot. Facts created from the schema with
+     * {@link InputSchema#newFacts()} are read by slot instead of by name.
+     */
+    public InputSchema getSchema() {
+        return schema;
+    }
+
+    public Node getRootNode() {
+        return rootNode;
+    }
+
+    public Engine getEngine() {
+        return engine;
     }
 }
@@ -20,6 +20,7 @@
 package com.abyala.decisiontree;
 
 import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
 
 /**
  * User: abyala
@@ -33,4 +34,59 @@ public interface DecisionTreeFacts {
     Integer getInt(final String key) throws InvalidFactException;
 
     Boolean getBoolean(String key) throws InvalidFactException;
+
+    /**
+     * Returns true if a value is present for the key. Implementations holding primitives should override this
+     * to avoid boxing.
+     */
+    default boolean hasFact(final String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the integer value of the key, throwing a MissingFactException if it is absent. Implementations
+     * holding primitives should override this to avoid boxing.
+     */
+    default int getIntValue(final String key) throws InvalidFactException {
+        final Integer value = getInt(key);
+        if (value == null) {
+            throw new MissingFactException(key);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the integer value of the key, throwing the given exception if it is absent, so that callers
+     * reading the same key on every evaluation can throw a preallocated instance.
+     */
+    default int getIntValue(final String key, final MissingFactException missing) throws InvalidFactException {
+        final Integer value = getInt(key);
+        if (value == null) {
+            throw missing;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the boolean value of the key, throwing a MissingFactException if it is absent. Implementations
+     * holding primitives should override this to avoid boxing.
+     */
+    default boolean getBooleanValue(final String key) throws InvalidFactException {
+        final Boolean value = getBoolean(key);
+        if (value == null) {
+            throw new MissingFactException(key);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the boolean value of the key, throwing the given exception if it is absent.
+     */
+    default boolean getBooleanValue(final String key, final MissingFactException missing) throws InvalidFactException {
+        final Boolean value = getBoolean(key);
+        if (value == null) {
+            throw missing;
+        }
+        return value;
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.nodes.AbstractNode;
+import com.abyala.decisiontree.nodes.NodeVisitor;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+/**
+ * The outcome of evaluating facts without exceptions: the matched leaf, or the input that was missing,
+ * unmapped or of the wrong type. Instances may be reused for another evaluation, but are not thread-safe.
+ * An evaluation is also the visitor that records the outcome of a walk through a tree's nodes.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class Evaluation implements NodeVisitor {
+    public enum Status {
+        MATCHED, NO_MAPPING, MISSING_FACT, INVALID_FACT
+    }
+
+    private Status status;
+    private ResultNode leaf;
+    private String fieldName;
+    private Object fieldValue;
+    private InvalidFactException invalidFact;
+
+    public void setMatched(final ResultNode leaf) {
+        set(Status.MATCHED, leaf, null, null, null);
+    }
+
+    public void setNoMapping(final String fieldName, final Object fieldValue) {
+        set(Status.NO_MAPPING, null, fieldName, fieldValue, null);
+    }
+
+    public void setMissingFact(final String fieldName) {
+        set(Status.MISSING_FACT, null, fieldName, null, null);
+    }
+
+    public void setInvalidFact(final InvalidFactException invalidFact) {
+        set(Status.INVALID_FACT, null, invalidFact.getFieldName(), invalidFact.getFieldValue(), invalidFact);
+    }
+
+    @Override
+    public void visitBranch(final AbstractNode node, final DecisionTreeFacts facts, final int branch) {
+    }
+
+    @Override
+    public void visitLeaf(final ResultNode leaf) {
+        setMatched(leaf);
+    }
+
+    @Override
+    public void visitFailure(final AbstractNode node, final DecisionTreeFacts facts, final Status status, final InvalidFactException error) {
+        if (status == Status.NO_MAPPING) {
+            setNoMapping(node.getName(), facts.get(node.getName()));
+        } else if (status == Status.MISSING_FACT) {
+            setMissingFact(node.getName());
+        } else {
+            setInvalidFact(error);
+        }
+    }
+
+    private void set(final Status status, final ResultNode leaf, final String fieldName, final Object fieldValue, final InvalidFactException invalidFact) {
+        this.status = status;
+        this.leaf = leaf;
+        this.fieldName = fieldName;
+        this.fieldValue = fieldValue;
+        this.invalidFact = invalidFact;
+    }
+
+    /**
+     * Returns the outcome, or null if nothing has been evaluated.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isMatched() {
+        return status == Status.MATCHED;
+    }
+
+    /**
+     * Returns the matched leaf, or null if the evaluation did not match.
+     */
+    public ResultNode getLeaf() {
+        return leaf;
+    }
+
+    /**
+     * Returns the name of the input that was missing, unmapped or invalid.
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Returns the unmapped or invalid fact value.
+     */
+    public Object getFieldValue() {
+        return fieldValue;
+    }
+
+    /**
+     * Returns the result of the matched leaf, throwing the exception that evaluate would have thrown if
+     * the evaluation did not match.
+     */
+    public Object getResult() throws InvalidFactException {
+        if (status == Status.MATCHED) {
+            return leaf.createResult();
+        }
+        throw toException();
+    }
+
+    /**
+     * Returns the exception equivalent to an unmatched outcome.
+     */
+    public InvalidFactException toException() {
+        if (status == null || status == Status.MATCHED) {
+            throw new IllegalStateException("Evaluation has no failure: " + this);
+        } else if (status == Status.NO_MAPPING) {
+            return new NoMappingDeclaredException(fieldName, fieldValue);
+        } else if (status == Status.MISSING_FACT) {
+            return new MissingFactException(fieldName);
+        } else {
+            return invalidFact;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Evaluation");
+        sb.append("{status=").append(status);
+        if (status == Status.MATCHED) {
+            sb.append(", leaf=").append(leaf.getId());
+        } else if (status != null) {
+            sb.append(", fieldName='").append(fieldName).append('\'');
+            sb.append(", fieldValue=").append(fieldValue);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+}
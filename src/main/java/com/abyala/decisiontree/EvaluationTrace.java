@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.nodes.AbstractNode;
+import com.abyala.decisiontree.nodes.NodeVisitor;
+import com.abyala.decisiontree.nodes.ResultNode;
+import com.abyala.decisiontree.results.ResultSpec;
+
+/**
+ * A record of the path one evaluation took: for each node visited, its input name, the fact value it read,
+ * the mapped value that matched (a string value, boolean or integer threshold), and the child selected,
+ * followed by the leaf reached. A step that failed records why instead of a branch. A trace grows as
+ * needed and keeps its capacity when cleared, so one reused trace stops allocating once it has seen the
+ * deepest path. Not thread-safe.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class EvaluationTrace implements NodeVisitor {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private String[] inputNames;
+    private Object[] factValues;
+    private Object[] branches;
+    private Object[] selected;
+    private Evaluation.Status[] statuses;
+    private int stepCount;
+    private ResultNode leaf;
+    private InvalidFactException failure;
+
+    public EvaluationTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EvaluationTrace(final int capacity) {
+        inputNames = new String[capacity];
+        factValues = new Object[capacity];
+        branches = new Object[capacity];
+        selected = new Object[capacity];
+        statuses = new Evaluation.Status[capacity];
+    }
+
+    public void clear() {
+        for (int i = 0; i < stepCount; i++) {
+            inputNames[i] = null;
+            factValues[i] = null;
+            branches[i] = null;
+            selected[i] = null;
+            statuses[i] = null;
+        }
+        stepCount = 0;
+        leaf = null;
+        failure = null;
+    }
+
+    @Override
+    public void visitBranch(final AbstractNode node, final DecisionTreeFacts facts, final int branch) {
+        addStep(node.getName(), facts.get(node.getName()), node.getBranchKey(branch), node.getChild(branch), Evaluation.Status.MATCHED);
+    }
+
+    @Override
+    public void visitLeaf(final ResultNode leaf) {
+        this.leaf = leaf;
+    }
+
+    /**
+     * Records the failed node as a step with the failure status and no branch, and the exception resolve
+     * would have thrown.
+     */
+    @Override
+    public void visitFailure(final AbstractNode node, final DecisionTreeFacts facts, final Evaluation.Status status, final InvalidFactException error) {
+        final Object value = facts.get(node.getName());
+        addStep(node.getName(), value, null, null, status);
+        if (status == Evaluation.Status.NO_MAPPING) {
+            failure = new NoMappingDeclaredException(node.getName(), value);
+        } else if (status == Evaluation.Status.MISSING_FACT) {
+            failure = new MissingFactException(node.getName());
+        } else {
+            failure = error;
+        }
+    }
+
+    private void addStep(final String inputName, final Object factValue, final Object branch, final Object child, final Evaluation.Status status) {
+        if (stepCount == inputNames.length) {
+            grow();
+        }
+        inputNames[stepCount] = inputName;
+        factValues[stepCount] = factValue;
+        branches[stepCount] = branch;
+        selected[stepCount] = child;
+        statuses[stepCount] = status;
+        stepCount++;
+    }
+
+    private void grow() {
+        final int capacity = Math.max(DEFAULT_CAPACITY, inputNames.length * 2);
+        final String[] grownNames = new String[capacity];
+        final Object[] grownValues = new Object[capacity];
+        final Object[] grownBranches = new Object[capacity];
+        final Object[] grownSelected = new Object[capacity];
+        final Evaluation.Status[] grownStatuses = new Evaluation.Status[capacity];
+        System.arraycopy(inputNames, 0, grownNames, 0, stepCount);
+        System.arraycopy(factValues, 0, grownValues, 0, stepCount);
+        System.arraycopy(branches, 0, grownBranches, 0, stepCount);
+        System.arraycopy(selected, 0, grownSelected, 0, stepCount);
+        System.arraycopy(statuses, 0, grownStatuses, 0, stepCount);
+        inputNames = grownNames;
+        factValues = grownValues;
+        branches = grownBranches;
+        selected = grownSelected;
+        statuses = grownStatuses;
+    }
+
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    public String getInputName(final int step) {
+        checkStep(step);
+        return inputNames[step];
+    }
+
+    public Object getFactValue(final int step) {
+        checkStep(step);
+        return factValues[step];
+    }
+
+    public Object getBranch(final int step) {
+        checkStep(step);
+        return branches[step];
+    }
+
+    /**
+     * Returns the child (a node or ResultNode) selected at the step, or null if the step failed.
+     */
+    public Object getSelected(final int step) {
+        checkStep(step);
+        return selected[step];
+    }
+
+    /**
+     * Returns MATCHED if the step selected a child, or why it failed otherwise.
+     */
+    public Evaluation.Status getStatus(final int step) {
+        checkStep(step);
+        return statuses[step];
+    }
+
+    /**
+     * Returns the leaf reached, or null if the evaluation failed.
+     */
+    public ResultNode getLeaf() {
+        return leaf;
+    }
+
+    /**
+     * Returns the exception the evaluation failed with, or null if it reached a leaf.
+     */
+    public InvalidFactException getFailure() {
+        return failure;
+    }
+
+    private void checkStep(final int step) {
+        if (step < 0 || step >= stepCount) {
+            throw new IndexOutOfBoundsException("Step " + step + " of " + stepCount);
+        }
+    }
+
+    /**
+     * Describes the path one step per line, ending with the leaf's attribute values.
+     */
+    public String explain() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < stepCount; i++) {
+            sb.append(inputNames[i]).append(" = ").append(factValues[i]);
+            if (statuses[i] == Evaluation.Status.MATCHED) {
+                sb.append(" -> matched ").append(branches[i]).append('\n');
+            } else if (statuses[i] == Evaluation.Status.MISSING_FACT) {
+                sb.append(" -> missing fact\n");
+            } else if (statuses[i] == Evaluation.Status.INVALID_FACT) {
+                sb.append(" -> invalid fact\n");
+            } else {
+                sb.append(" -> no mapping\n");
+            }
+        }
+        if (leaf != null) {
+            sb.append("result #").append(leaf.getId()).append(" {");
+            final ResultSpec spec = leaf.getSpec();
+            for (int ordinal = 0; ordinal < spec.getAttributeCount(); ordinal++) {
+                if (ordinal > 0) {
+                    sb.append(", ");
+                }
+                sb.append(spec.getAttribute(ordinal).getName()).append('=').append(leaf.getValue(ordinal));
+            }
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("EvaluationTrace");
+        sb.append("{stepCount=").append(stepCount);
+        sb.append(", leaf=").append(leaf == null ? null : leaf.getId());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.types.BooleanInputType;
+import com.abyala.decisiontree.types.InputType;
+import com.abyala.decisiontree.types.IntegerInputType;
+import com.abyala.decisiontree.types.StringInputType;
+
+import java.util.BitSet;
+
+/**
+ * The facts of many rows, stored as one column per input of an {@link InputSchema}. Integers are held in an
+ * int[] column, strings in a String[] column and booleans in a BitSet, all indexed by row. A null string
+ * is a missing fact for that row. Columns are not copied, so they must not change during an evaluation.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class FactBatch {
+    private final InputSchema schema;
+    private final int size;
+    private final Object[] columns;
+
+    public FactBatch(final InputSchema schema, final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Batch size may not be negative: " + size);
+        }
+        this.schema = schema;
+        this.size = size;
+        this.columns = new Object[schema.size()];
+    }
+
+    public InputSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Returns the number of rows in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    public FactBatch setInts(final String key, final int[] column) {
+        if (column.length < size) {
+            throw new IllegalArgumentException("Column \"" + key + "\" has " + column.length + " rows, expected " + size);
+        }
+        columns[slotOf(key, IntegerInputType.class)] = column;
+        return this;
+    }
+
+    public FactBatch setStrings(final String key, final String[] column) {
+        if (column.length < size) {
+            throw new IllegalArgumentException("Column \"" + key + "\" has " + column.length + " rows, expected " + size);
+        }
+        columns[slotOf(key, StringInputType.class)] = column;
+        return this;
+    }
+
+    public FactBatch setBooleans(final String key, final BitSet column) {
+        columns[slotOf(key, BooleanInputType.class)] = column;
+        return this;
+    }
+
+    /**
+     * Returns the integer column at the slot, or null if none was set.
+     */
+    public int[] getInts(final int slot) {
+        return columns[slot] instanceof int[] ? (int[]) columns[slot] : null;
+    }
+
+    /**
+     * Returns the string column at the slot, or null if none was set.
+     */
+    public String[] getStrings(final int slot) {
+        return columns[slot] instanceof String[] ? (String[]) columns[slot] : null;
+    }
+
+    /**
+     * Returns the boolean column at the slot, or null if none was set.
+     */
+    public BitSet getBooleans(final int slot) {
+        return columns[slot] instanceof BitSet ? (BitSet) columns[slot] : null;
+    }
+
+    /**
+     * Returns the value of the named input for one row, or null if it has no value.
+     */
+    public Object get(final String key, final int row) {
+        final int slot = schema.getSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        final Object column = columns[slot];
+        if (column instanceof int[]) {
+            return ((int[]) column)[row];
+        } else if (column instanceof String[]) {
+            return ((String[]) column)[row];
+        } else if (column instanceof BitSet) {
+            return ((BitSet) column).get(row);
+        } else {
+            return null;
+        }
+    }
+
+    private int slotOf(final String key, final Class<? extends InputType> expectedType) {
+        final int slot = schema.getSlot(key);
+        if (slot < 0) {
+            throw new IllegalArgumentException("No input named \"" + key + "\" in schema " + schema);
+        }
+
+        final InputType type = schema.getType(slot);
+        if (!expectedType.isInstance(type)) {
+            throw new IllegalArgumentException("Input \"" + key + "\" is not of type " + expectedType.getSimpleName());
+        }
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("FactBatch");
+        sb.append("{size=").append(size);
+        sb.append(", schema=").append(schema);
+        sb.append('}');
+        return sb.toString();
+    }
+}
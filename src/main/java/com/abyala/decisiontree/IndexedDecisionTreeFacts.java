@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.exceptions.InvalidFactDataypeException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+
+/**
+ * Facts stored in arrays indexed by the slots of an {@link InputSchema}. Integers and booleans are kept as
+ * primitives, and nodes of the schema's tree read them by slot. Instances may be cleared and reused, but
+ * are not thread-safe.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class IndexedDecisionTreeFacts extends AbstractDecisionTreeFacts {
+    private static final byte ABSENT = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte BOOLEAN = 3;
+
+    private final InputSchema schema;
+    private final byte[] kinds;
+    private final int[] ints;
+    private final boolean[] booleans;
+    private final String[] strings;
+
+    public IndexedDecisionTreeFacts(final InputSchema schema) {
+        this.schema = schema;
+        this.kinds = new byte[schema.size()];
+        this.ints = new int[schema.size()];
+        this.booleans = new boolean[schema.size()];
+        this.strings = new String[schema.size()];
+    }
+
+    public InputSchema getSchema() {
+        return schema;
+    }
+
+    public void put(final String key, final String value) {
+        setString(slotOf(key), value);
+    }
+
+    public void put(final String key, final int value) {
+        setInt(slotOf(key), value);
+    }
+
+    public void put(final String key, final boolean value) {
+        setBoolean(slotOf(key), value);
+    }
+
+    public void setString(final int slot, final String value) {
+        strings[slot] = value;
+        kinds[slot] = value == null ? ABSENT : STRING;
+    }
+
+    public void setInt(final int slot, final int value) {
+        strings[slot] = null;
+        ints[slot] = value;
+        kinds[slot] = INTEGER;
+    }
+
+    public void setBoolean(final int slot, final boolean value) {
+        strings[slot] = null;
+        booleans[slot] = value;
+        kinds[slot] = BOOLEAN;
+    }
+
+    public void remove(final int slot) {
+        strings[slot] = null;
+        kinds[slot] = ABSENT;
+    }
+
+    /**
+     * Removes every fact so that the instance can be reused for another evaluation.
+     */
+    public void clear() {
+        for (int slot = 0; slot < kinds.length; slot++) {
+            remove(slot);
+        }
+    }
+
+    public boolean isSet(final int slot) {
+        return kinds[slot] != ABSENT;
+    }
+
+    public String getString(final int slot) throws InvalidFactException {
+        if (kinds[slot] != STRING) {
+            throw invalidFact(slot, String.class);
+        }
+        return strings[slot];
+    }
+
+    public int getInt(final int slot) throws InvalidFactException {
+        if (kinds[slot] != INTEGER) {
+            throw invalidFact(slot, Integer.class);
+        }
+        return ints[slot];
+    }
+
+    public boolean getBoolean(final int slot) throws InvalidFactException {
+        if (kinds[slot] != BOOLEAN) {
+            throw invalidFact(slot, Boolean.class);
+        }
+        return booleans[slot];
+    }
+
+    @Override
+    public boolean hasFact(final String key) {
+        final int slot = schema.getSlot(key);
+        return slot >= 0 && isSet(slot);
+    }
+
+    @Override
+    public int getIntValue(final String key) throws InvalidFactException {
+        final int slot = schema.getSlot(key);
+        if (slot < 0) {
+            throw new MissingFactException(key);
+        }
+        return getInt(slot);
+    }
+
+    @Override
+    public boolean getBooleanValue(final String key) throws InvalidFactException {
+        final int slot = schema.getSlot(key);
+        if (slot < 0) {
+            throw new MissingFactException(key);
+        }
+        return getBoolean(slot);
+    }
+
+    @Override
+    public int getIntValue(final String key, final MissingFactException missing) throws InvalidFactException {
+        final int slot = schema.getSlot(key);
+        if (slot < 0) {
+            throw missing;
+        }
+        return getInt(slot);
+    }
+
+    @Override
+    public boolean getBooleanValue(final String key, final MissingFactException missing) throws InvalidFactException {
+        final int slot = schema.getSlot(key);
+        if (slot < 0) {
+            throw missing;
+        }
+        return getBoolean(slot);
+    }
+
+    @Override
+    public Object get(final String key) {
+        final int slot = schema.getSlot(key);
+        return slot < 0 ? null : get(slot);
+    }
+
+    private Object get(final int slot) {
+        switch (kinds[slot]) {
+            case STRING:
+                return strings[slot];
+            case INTEGER:
+                return ints[slot];
+            case BOOLEAN:
+                return booleans[slot];
+            default:
+                return null;
+        }
+    }
+
+    private int slotOf(final String key) {
+        final int slot = schema.getSlot(key);
+        if (slot < 0) {
+            throw new IllegalArgumentException("No input named \"" + key + "\" in schema " + schema);
+        }
+        return slot;
+    }
+
+    private InvalidFactException invalidFact(final int slot, final Class<?> expectedClass) {
+        if (kinds[slot] == ABSENT) {
+            return schema.getMissingFact(slot);
+        }
+        final String name = schema.getType(slot).getName();
+        final Object value = get(slot);
+        return new InvalidFactDataypeException(name, value, expectedClass, value.getClass());
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("IndexedDecisionTreeFacts");
+        sb.append("{facts={");
+        for (int slot = 0; slot < kinds.length; slot++) {
+            if (kinds[slot] != ABSENT) {
+                if (sb.charAt(sb.length() - 1) != '{') {
+                    sb.append(", ");
+                }
+                sb.append(schema.getType(slot).getName()).append('=').append(get(slot));
+            }
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.types.InputType;
+
+import java.util.*;
+
+/**
+ * The inputs of a tree, numbered by slot. Facts created from a schema store each input at its slot, which
+ * lets nodes read them without looking up the input's name.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class InputSchema {
+    private final InputType[] types;
+    private final MissingFactException[] missingFacts;
+    private final Map<String, Integer> slots = new HashMap<String, Integer>();
+
+    public InputSchema(final Collection<InputType> inputs) {
+        int size = 0;
+        for (InputType input : inputs) {
+            size = Math.max(size, input.getSlot() + 1);
+        }
+
+        types = new InputType[size];
+        for (InputType input : inputs) {
+            final int slot = input.getSlot();
+            if (slot < 0) {
+                continue;
+            } else if (types[slot] != null) {
+                throw new IllegalArgumentException("Inputs \"" + types[slot].getName() + "\" and \"" + input.getName() + "\" share slot " + slot);
+            }
+            types[slot] = input;
+            slots.put(input.getName(), slot);
+        }
+
+        missingFacts = new MissingFactException[size];
+        for (int slot = 0; slot < size; slot++) {
+            if (types[slot] != null) {
+                missingFacts[slot] = new MissingFactException(types[slot].getName());
+            }
+        }
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Returns the slot of the named input, or -1 if the schema has no such input.
+     */
+    public int getSlot(final String name) {
+        final Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the input at the slot, or null if no input uses it.
+     */
+    public InputType getType(final int slot) {
+        return types[slot];
+    }
+
+    /**
+     * Returns a preallocated exception for a missing fact at the slot.
+     */
+    public MissingFactException getMissingFact(final int slot) {
+        return missingFacts[slot];
+    }
+
+    /**
+     * Returns true if the input is the one this schema holds at the given slot.
+     */
+    public boolean contains(final int slot, final InputType type) {
+        return slot >= 0 && slot < types.length && types[slot] == type;
+    }
+
+    public IndexedDecisionTreeFacts newFacts() {
+        return new IndexedDecisionTreeFacts(this);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("InputSchema");
+        sb.append("{types=").append(Arrays.asList(types));
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -19,6 +19,9 @@
 
 package com.abyala.decisiontree;
 
+import com.abyala.decisiontree.exceptions.InvalidFactDataypeException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
 import com.abyala.decisiontree.facts.BooleanFact;
 import com.abyala.decisiontree.facts.Fact;
 import com.abyala.decisiontree.facts.IntegerFact;
@@ -51,6 +54,55 @@ public class SimpleDecisionTreeFacts extends AbstractDecisionTreeFacts {
         return fact == null ? null : fact.getValue();
     }
 
+    @Override
+    public boolean hasFact(final String key) {
+        final Fact fact = facts.get(key);
+        if (fact instanceof StringFact) {
+            return fact.getValue() != null;
+        }
+        return fact != null;
+    }
+
+    @Override
+    public int getIntValue(final String key) throws InvalidFactException {
+        return getIntValue(key, null);
+    }
+
+    @Override
+    public int getIntValue(final String key, final MissingFactException missing) throws InvalidFactException {
+        final Fact fact = facts.get(key);
+        if (fact instanceof IntegerFact) {
+            return ((IntegerFact) fact).getIntValue();
+        }
+        throw invalidFact(key, fact, Integer.class, missing);
+    }
+
+    @Override
+    public boolean getBooleanValue(final String key) throws InvalidFactException {
+        return getBooleanValue(key, null);
+    }
+
+    @Override
+    public boolean getBooleanValue(final String key, final MissingFactException missing) throws InvalidFactException {
+        final Fact fact = facts.get(key);
+        if (fact instanceof BooleanFact) {
+            return ((BooleanFact) fact).getBooleanValue();
+        }
+        throw invalidFact(key, fact, Boolean.class, missing);
+    }
+
+    /**
+     * Returns the exception for a fact that is absent or of the wrong type, using the given missing fact
+     * exception if there is one.
+     */
+    private InvalidFactException invalidFact(final String key, final Fact fact, final Class<?> expectedClass, final MissingFactException missing) {
+        final Object value = fact == null ? null : fact.getValue();
+        if (value == null) {
+            return missing != null ? missing : new MissingFactException(key);
+        }
+        return new InvalidFactDataypeException(key, value, expectedClass, value.getClass());
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -19,7 +19,10 @@
 
 package com.abyala.decisiontree;
 
+import com.abyala.decisiontree.engine.EngineCompiler;
 import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.jfr.ParseEvent;
+import com.abyala.decisiontree.nodes.IntegerNode;
 import com.abyala.decisiontree.nodes.Node;
 import com.abyala.decisiontree.nodes.NodeBuilder;
 import com.abyala.decisiontree.nodes.ResultNode;
@@ -37,7 +40,11 @@ import org.jdom2.input.SAXBuilder;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
-import java.lang.reflect.Method;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
 import java.util.*;
 
 /**
@@ -45,13 +52,73 @@ import java.util.*;
  * Date: 6/14/12
  */
 public class SimpleDecisionTreeParser implements DecisionTreeParser {
+    private EngineCompiler engineCompiler;
+    private int denseTableLimit = IntegerNode.DEFAULT_DENSE_TABLE_LIMIT;
+
+    /**
+     * Sets the compiler used to build the engine of every parsed tree. When none is set, trees are
+     * evaluated by walking their nodes.
+     */
+    public SimpleDecisionTreeParser setEngineCompiler(final EngineCompiler engineCompiler) {
+        this.engineCompiler = engineCompiler;
+        return this;
+    }
+
+    /**
+     * Sets the largest integer input domain for which nodes resolve their children through a dense table
+     * instead of a search. Zero disables dense tables.
+     */
+    public SimpleDecisionTreeParser setDenseTableLimit(final int denseTableLimit) {
+        this.denseTableLimit = denseTableLimit;
+        return this;
+    }
 
     protected DecisionTree parseDocument(final Document doc) throws DecisionTreeParserException {
+        final ParseEvent event = new ParseEvent();
+        event.begin();
+        return parseDocument(doc, event);
+    }
+
+    /**
+     * Parses the document, timing each phase for the parse event, which is committed once the tree is built.
+     */
+    private DecisionTree parseDocument(final Document doc, final ParseEvent event) throws DecisionTreeParserException {
         final Element rootElement = doc.getRootElement();
+        long start = System.nanoTime();
         final Map<String, InputType> types = parseInputTypes(rootElement.getChild("input-types"));
+        long end = System.nanoTime();
+        event.inputTypesDuration = end - start;
+
+        start = end;
         final ResultSpec resultSpec = parseResultClass(rootElement.getChild("result-type"));
-        final Node rootNode = parseTable(rootElement.getChild("tree"), types, resultSpec);
-        return new DecisionTree(rootNode, types.values());
+        end = System.nanoTime();
+        event.resultClassDuration = end - start;
+
+        start = end;
+        final List<ResultNode> leaves = new ArrayList<ResultNode>();
+        final Node rootNode = parseTable(rootElement.getChild("tree"), types, resultSpec, leaves);
+        end = System.nanoTime();
+        event.tableDuration = end - start;
+
+        start = end;
+        rootNode.validate();
+        end = System.nanoTime();
+        event.validateDuration = end - start;
+
+        final DecisionTree tree = new DecisionTree(rootNode, types.values(), leaves);
+        if (engineCompiler != null) {
+            start = System.nanoTime();
+            tree.compile(engineCompiler);
+            event.compileDuration = System.nanoTime() - start;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.treeId = tree.getId();
+            event.leafCount = tree.getLeafCount();
+            event.commit();
+        }
+        return tree;
     }
 
     private ResultSpec parseResultClass(final Element resultElement) throws DecisionTreeParserException {
@@ -60,16 +127,38 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
         final String className = resultElement.getAttributeValue("class");
         final Class clazz;
         try {
-            clazz = Class.forName(className);
+            clazz = loadResultClass(className);
         } catch (ClassNotFoundException e) {
             throw new DecisionTreeParserException("Result class not found: " + className);
         }
 
         final ResultSpec.Builder builder = new ResultSpec.Builder(clazz);
+        final String immutable = resultElement.getAttributeValue("immutable");
+        if ("true".equals(immutable)) {
+            builder.setImmutable(true);
+        } else if (immutable != null && !"false".equals(immutable)) {
+            throw new DecisionTreeParserException("Invalid immutable value \"" + immutable + "\" for result-type");
+        }
         parseResultAttributes(builder, resultElement, clazz);
         return builder.build();
     }
 
+    /**
+     * Loads the result class through the thread's context class loader if it has one, so that result classes
+     * defined by an application or container loader are found, and through the parser's own loader otherwise.
+     */
+    private Class loadResultClass(final String className) throws ClassNotFoundException {
+        final ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        if (contextLoader != null) {
+            try {
+                return Class.forName(className, true, contextLoader);
+            } catch (ClassNotFoundException e) {
+                // Fall back to the parser's loader below
+            }
+        }
+        return Class.forName(className);
+    }
+
     private Map<String, Method> parseAnnotatedMethods(final Class clazz) {
         final Map<String, Method> methodMap = new HashMap<String, Method>();
 
@@ -84,6 +173,12 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
     }
 
     private void parseResultAttributes(final ResultSpec.Builder builder, final Element element, final Class resultClass) throws DecisionTreeParserException {
+        final Executable creator = findResultCreator(resultClass);
+        if (creator != null) {
+            parseCreatorAttributes(builder, element, resultClass, creator);
+            return;
+        }
+
         final Map<String, Method> annotatedResultMethods = parseAnnotatedMethods(resultClass);
 
         for (Element child : element.getChildren()) {
@@ -97,6 +192,150 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
         }
     }
 
+    /**
+     * Binds every attribute to a parameter of the result creator, which must take exactly the declared
+     * attributes, each as a parameter type its values can be passed to.
+     */
+    private void parseCreatorAttributes(final ResultSpec.Builder builder, final Element element, final Class resultClass, final Executable creator) throws DecisionTreeParserException {
+        final List<String> parameters = getCreatorParameterNames(creator);
+        final Set<String> undeclared = new LinkedHashSet<String>(parameters);
+
+        for (Element child : element.getChildren()) {
+            final String attributeName = child.getAttributeValue("name");
+            if (!undeclared.remove(attributeName))
+                throw new DecisionTreeParserException("Result attribute \"" + attributeName + "\" is not a parameter of the creator of result class " + resultClass.getName());
+
+            final ResultAttribute attribute = parseResultAttribute(child, null);
+            final Class<?> parameterType = creator.getParameterTypes()[parameters.indexOf(attributeName)];
+            if (!MethodType.methodType(parameterType).wrap().returnType().isAssignableFrom(attribute.getValueType()))
+                throw new DecisionTreeParserException("Result attribute \"" + attributeName + "\" of type " + attribute.getValueType().getSimpleName() + " does not match creator parameter type " + parameterType.getName() + " of result class " + resultClass.getName());
+
+            builder.addAttribute(attribute);
+        }
+
+        if (!undeclared.isEmpty()) {
+            throw new DecisionTreeParserException("Result class " + resultClass.getName() + " has creator parameters with no result attribute: " + undeclared);
+        }
+
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final MethodHandle handle = creator instanceof Constructor
+                    ? lookup.unreflectConstructor((Constructor) creator)
+                    : lookup.unreflect((Method) creator);
+            builder.setCreator(handle, parameters);
+        } catch (IllegalAccessException e) {
+            throw new DecisionTreeParserException("Result creator is not accessible: " + creator);
+        }
+    }
+
+    /**
+     * Finds the single public constructor or static factory method whose parameters are all annotated with
+     * {@link ResultField}, or else the canonical constructor of a record. Returns null if there is neither,
+     * in which case results are built through a no-arg constructor and annotated setters.
+     */
+    private Executable findResultCreator(final Class<?> clazz) throws DecisionTreeParserException {
+        final List<Executable> creators = new ArrayList<Executable>();
+        for (Constructor constructor : clazz.getConstructors()) {
+            if (isAnnotatedCreator(constructor)) {
+                creators.add(constructor);
+            }
+        }
+        for (Method method : clazz.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) && clazz.isAssignableFrom(method.getReturnType()) && isAnnotatedCreator(method)) {
+                creators.add(method);
+            }
+        }
+
+        if (creators.size() > 1) {
+            throw new DecisionTreeParserException("Result class " + clazz.getName() + " has more than one @ResultField creator: " + creators);
+        } else if (creators.size() == 1) {
+            return creators.get(0);
+        }
+        return findRecordConstructor(clazz);
+    }
+
+    private boolean isAnnotatedCreator(final Executable executable) {
+        if (executable.getParameterCount() == 0) {
+            return false;
+        }
+        for (Annotation[] annotations : executable.getParameterAnnotations()) {
+            if (getResultField(annotations) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<String> getCreatorParameterNames(final Executable creator) {
+        final List<String> names = new ArrayList<String>();
+        final Annotation[][] annotations = creator.getParameterAnnotations();
+        final String[] recordComponents = getRecordComponentNames(creator.getDeclaringClass());
+        for (int i = 0; i < annotations.length; i++) {
+            final ResultField field = getResultField(annotations[i]);
+            names.add(field != null ? field.name() : recordComponents[i]);
+        }
+        return names;
+    }
+
+    private ResultField getResultField(final Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof ResultField) {
+                return (ResultField) annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the canonical constructor of a record class, or null for any other class. Records are
+     * inspected reflectively so that the library still runs on JDKs that predate them.
+     */
+    private Constructor findRecordConstructor(final Class<?> clazz) throws DecisionTreeParserException {
+        final Object[] components = getRecordComponents(clazz);
+        if (components == null) {
+            return null;
+        }
+
+        final Class<?>[] types = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            types[i] = (Class<?>) invokeAccessor(components[i], "getType");
+        }
+        try {
+            return clazz.getConstructor(types);
+        } catch (NoSuchMethodException e) {
+            throw new DecisionTreeParserException("Result record " + clazz.getName() + " has no public canonical constructor");
+        }
+    }
+
+    private String[] getRecordComponentNames(final Class<?> clazz) {
+        final Object[] components = getRecordComponents(clazz);
+        final String[] names = new String[components == null ? 0 : components.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = (String) invokeAccessor(components[i], "getName");
+        }
+        return names;
+    }
+
+    private Object[] getRecordComponents(final Class<?> clazz) {
+        try {
+            return (Object[]) Class.class.getMethod("getRecordComponents").invoke(clazz);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    private Object invokeAccessor(final Object target, final String name) {
+        try {
+            return target.getClass().getMethod(name).invoke(target);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot read " + name + " of " + target, e);
+        }
+    }
+
     private ResultAttribute parseResultAttribute(final Element element, final Method method) throws DecisionTreeParserException {
         final String elementType = element.getName();
         final String attributeName = element.getAttributeValue("name");
@@ -165,21 +404,22 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
         return builder.build();
     }
 
-    private Node parseTable(final Element tableElement, final Map<String, InputType> types, final ResultSpec resultSpec) throws DecisionTreeParserException {
+    private Node parseTable(final Element tableElement, final Map<String, InputType> types, final ResultSpec resultSpec, final List<ResultNode> leaves) throws DecisionTreeParserException {
         if (tableElement == null) {
             throw new DecisionTreeParserException("Invalid XML: No element named \"tree\" found");
         }
 
-        final Node rootNode = parseInputs("/", tableElement.getChildren(), types, resultSpec);
-        rootNode.validate();
-        return rootNode;
+        return parseInputs("/", tableElement.getChildren(), types, resultSpec, leaves);
     }
 
-    private Node parseInputs(final String parentPath, final List<Element> inputs, final Map<String, InputType> types, final ResultSpec resultSpec) throws DecisionTreeParserException {
+    private Node parseInputs(final String parentPath, final List<Element> inputs, final Map<String, InputType> types, final ResultSpec resultSpec, final List<ResultNode> leaves) throws DecisionTreeParserException {
         final String inputName = getInputName(parentPath, inputs);
         final String nodePath = parentPath + inputName;
         final InputType inputType = getInputType(inputName, types);
         final NodeBuilder builder = inputType.createNodeBuilder();
+        if (builder instanceof IntegerNode.Builder) {
+            ((IntegerNode.Builder) builder).setDenseTableLimit(denseTableLimit);
+        }
 
         for (Element input : inputs) {
             final String value = input.getAttributeValue("value");
@@ -196,9 +436,9 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
             } else if (children.isEmpty()) {
                 throw new DecisionTreeParserException("Node at path " + childPath + " must have a result, child inputs, or a refid");
             } else if (children.size() == 1 && "result".equals(children.get(0).getName())) {
-                builder.addResultMapping(value, parseResult(children.get(0), resultSpec));
+                builder.addResultMapping(value, parseResult(children.get(0), resultSpec, leaves));
             } else {
-                builder.addNodeMapping(value, parseInputs(childPath + "/", children, types, resultSpec));
+                builder.addNodeMapping(value, parseInputs(childPath + "/", children, types, resultSpec, leaves));
             }
         }
 
@@ -206,18 +446,21 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
     }
 
     /**
-     * Creates a result specification for this node. Does not create the actual result object,
-     * since there's no guarantee that that object will be immutable.
+     * Creates a result specification for this node. The actual result object is only created here if
+     * the result-type is declared immutable; otherwise each evaluation creates its own. Each result is
+     * added to the leaves, and its position there is its leaf ID.
      */
-    private ResultNode parseResult(final Element element, final ResultSpec resultSpec) throws DecisionTreeParserException {
-        final ResultNode.Builder builder = new ResultNode.Builder(resultSpec);
+    private ResultNode parseResult(final Element element, final ResultSpec resultSpec, final List<ResultNode> leaves) throws DecisionTreeParserException {
+        final ResultNode.Builder builder = new ResultNode.Builder(resultSpec).setId(leaves.size());
         for (final Attribute attribute : element.getAttributes()) {
             final String name = attribute.getName();
             final String value = attribute.getValue();
             builder.addAttribute(name, value);
         }
 
-        return builder.build();
+        final ResultNode leaf = builder.build();
+        leaves.add(leaf);
+        return leaf;
     }
 
     private InputType getInputType(final String name, final Map<String, InputType> types) throws DecisionTreeParserException {
@@ -246,9 +489,13 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
 
     @Override
     public DecisionTree parse(final Reader inputReader) throws DecisionTreeParserException {
+        final ParseEvent event = new ParseEvent();
+        event.begin();
+        final long start = System.nanoTime();
         try {
             final Document doc = new SAXBuilder().build(inputReader);
-            return parseDocument(doc);
+            event.xmlLoadDuration = System.nanoTime() - start;
+            return parseDocument(doc, event);
         } catch (JDOMException e) {
             throw new DecisionTreeParserException(e);
         } catch (IOException e) {
@@ -258,9 +505,13 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
 
     @Override
     public DecisionTree parse(final InputStream inputStream) throws DecisionTreeParserException {
+        final ParseEvent event = new ParseEvent();
+        event.begin();
+        final long start = System.nanoTime();
         try {
             final Document doc = new SAXBuilder().build(inputStream);
-            return parseDocument(doc);
+            event.xmlLoadDuration = System.nanoTime() - start;
+            return parseDocument(doc, event);
         } catch (JDOMException e) {
             throw new DecisionTreeParserException(e);
         } catch (IOException e) {
@@ -287,14 +538,17 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
     }
 
     protected Map<String, InputType> parseInputTypes(final Element child) throws DecisionTreeParserException {
-        final Map<String, InputType> types = new HashMap<String, InputType>(child.getChildren().size());
+        final Map<String, InputType> types = new LinkedHashMap<String, InputType>(child.getChildren().size());
 
         for (Element typeElement : child.getChildren()) {
-            final InputType type = parseInputType(typeElement);
+            final InputType type = parseInputType(typeElement, types.size());
 
             if ("result".equals(type.getName())) {
                 throw new DecisionTreeParserException("Invalid configuration: No input-type may be named \"result\" since it is() a reserved keyword");
             }
+            if (types.containsKey(type.getName())) {
+                throw new DecisionTreeParserException("Invalid configuration: Input-type \"" + type.getName() + "\" is declared more than once");
+            }
 
             types.put(type.getName(), type);
         }
@@ -302,36 +556,36 @@ public class SimpleDecisionTreeParser implements DecisionTreeParser {
         return types;
     }
 
-    private InputType parseInputType(final Element typeElement) throws DecisionTreeParserException {
+    private InputType parseInputType(final Element typeElement, final int slot) throws DecisionTreeParserException {
         final String typeName = typeElement.getName();
         if ("string-type".equals(typeName)) {
-            return parseStringInputType(typeElement);
+            return parseStringInputType(typeElement, slot);
         } else if ("integer-type".equals(typeName)) {
-            return parseIntegerInputType(typeElement);
+            return parseIntegerInputType(typeElement, slot);
         } else if ("boolean-type".equals(typeName)) {
-            return parseBooleanInputType(typeElement);
+            return parseBooleanInputType(typeElement, slot);
         } else {
             throw new DecisionTreeParserException("Unknown input-type: " + typeName);
         }
     }
 
-    InputType parseBooleanInputType(final Element typeElement) {
+    InputType parseBooleanInputType(final Element typeElement, final int slot) {
         final String name = typeElement.getAttributeValue("name");
-        final BooleanInputType.Builder builder = new BooleanInputType.Builder(name);
+        final BooleanInputType.Builder builder = new BooleanInputType.Builder(name).setSlot(slot);
         return builder.build();
     }
 
-    private InputType parseIntegerInputType(final Element typeElement) throws DecisionTreeParserException {
+    private InputType parseIntegerInputType(final Element typeElement, final int slot) throws DecisionTreeParserException {
         final String name = typeElement.getAttributeValue("name");
-        final IntegerInputType.Builder builder = new IntegerInputType.Builder(name);
+        final IntegerInputType.Builder builder = new IntegerInputType.Builder(name).setSlot(slot);
         builder.setMinValue(parseMinInt(typeElement.getAttributeValue("min"), "integer-type " + name));
         builder.setMaxValue(parseMaxInt(typeElement.getAttributeValue("max"), "integer-type " + name));
         return builder.build();
     }
 
-    InputType parseStringInputType(final Element typeElement) throws DecisionTreeParserException {
+    InputType parseStringInputType(final Element typeElement, final int slot) throws DecisionTreeParserException {
         final String name = typeElement.getAttributeValue("name");
-        final StringInputType.Builder builder = new StringInputType.Builder(name);
+        final StringInputType.Builder builder = new StringInputType.Builder(name).setSlot(slot);
         boolean hasDefaultValue = false;
         for (Element child : typeElement.getChildren("value")) {
             final boolean isDefault = "true".equals(child.getAttributeValue("default"));
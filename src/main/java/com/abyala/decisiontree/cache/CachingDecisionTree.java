@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.cache;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.nodes.AbstractNode;
+import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.NodeVisitor;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes the leaf a tree selects for each combination of the fact values it consults. The key is built
+ * along the path taken, so facts that differ only in inputs the path never reads share an entry, and a
+ * lookup reads only the inputs on that path: the cache is a trie mirroring the tree, with one level per
+ * node reached and one edge per raw fact value seen there.
+ * <p>
+ * The number of cached leaves is bounded. When full, the entry with the lowest use count among a random
+ * sample is evicted, and use counts are halved once per maximumSize insertions so that old popularity
+ * fades. Lookups are lock-free; insertions and evictions are serialized.
+ * <p>
+ * Fact values are compared with equals, so values of different types that the tree treats the same way,
+ * such as an Integer and a Long, are cached separately. Missing facts and unmapped values are not cached.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class CachingDecisionTree {
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+    public static final int DEFAULT_SAMPLE_SIZE = 8;
+    private static final int INITIAL_PATH_LENGTH = 16;
+
+    /**
+     * Use counts stop at this value, so a hot entry's count stops being written once it is known to be
+     * hot, rather than every hit on it writing to the same cache line.
+     */
+    static final int MAX_FREQUENCY = 15;
+
+    private final DecisionTree tree;
+    private final int maximumSize;
+    private final int sampleSize;
+    private final Level root;
+    private final Entry[] entries;
+    private int size;
+    private int insertsSinceAging;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    private CachingDecisionTree(final DecisionTree tree, final int maximumSize, final int sampleSize) {
+        this.tree = tree;
+        this.maximumSize = maximumSize;
+        this.sampleSize = sampleSize;
+        this.root = new Level(tree.getRootNode(), null, null);
+        this.entries = new Entry[maximumSize];
+    }
+
+    public Object evaluate(final DecisionTreeFacts facts) throws InvalidFactException {
+        return resolve(facts).createResult();
+    }
+
+    public int evaluateLeafId(final DecisionTreeFacts facts) throws InvalidFactException {
+        return resolve(facts).getId();
+    }
+
+    public ResultNode resolve(final DecisionTreeFacts facts) throws InvalidFactException {
+        Level level = root;
+        Object value;
+        while ((value = facts.get(level.node.getName())) != null) {
+            final Object child = level.children.get(value);
+            if (child instanceof Entry) {
+                final Entry entry = (Entry) child;
+                if (entry.frequency < MAX_FREQUENCY) {
+                    entry.frequency++;
+                }
+                hitCount.increment();
+                return entry.leaf;
+            } else if (child == null) {
+                break;
+            }
+            level = (Level) child;
+        }
+
+        missCount.increment();
+        return load(facts);
+    }
+
+    /**
+     * Walks the tree from its root, then caches the leaf under the values read along the way. Walking the
+     * whole path rather than resuming from the deepest cached level keeps the result correct even if that
+     * level is being evicted concurrently.
+     */
+    ResultNode load(final DecisionTreeFacts facts) throws InvalidFactException {
+        final PathRecorder path = new PathRecorder();
+        final ResultNode leaf = tree.getRootNode().walk(facts, path);
+        if (leaf == null) {
+            throw path.failure;
+        }
+        store(path.nodes, path.values, path.depth, leaf);
+        return leaf;
+    }
+
+    /**
+     * Returns without evicting if another thread cached the path first. Otherwise evicts before walking the
+     * trie to insert, since evicting can detach levels that become empty.
+     */
+    private synchronized void store(final Node[] path, final Object[] values, final int depth, final ResultNode leaf) {
+        if (!canStore(values, depth)) {
+            return;
+        }
+        if (size == maximumSize) {
+            evict();
+        }
+
+        Level level = root;
+        for (int i = 0; i < depth - 1; i++) {
+            if (values[i] == null) {
+                return;
+            }
+            final Object child = level.children.get(values[i]);
+            if (child instanceof Level) {
+                level = (Level) child;
+            } else if (child == null) {
+                final Level created = new Level(path[i + 1], level, values[i]);
+                level.children.put(values[i], created);
+                level = created;
+            } else {
+                return;
+            }
+        }
+        final Object value = values[depth - 1];
+        if (value == null || level.children.containsKey(value)) {
+            return;
+        }
+
+        final Entry entry = new Entry(level, value, leaf, size);
+        entries[size++] = entry;
+        level.children.put(value, entry);
+
+        if (++insertsSinceAging >= maximumSize) {
+            insertsSinceAging = 0;
+            for (int i = 0; i < size; i++) {
+                entries[i].frequency >>>= 1;
+            }
+        }
+    }
+
+    /**
+     * Returns false if the path is already cached, or cannot be because a value on it is null.
+     */
+    private boolean canStore(final Object[] values, final int depth) {
+        Level level = root;
+        for (int i = 0; i < depth - 1; i++) {
+            if (values[i] == null) {
+                return false;
+            }
+            final Object child = level.children.get(values[i]);
+            if (child instanceof Level) {
+                level = (Level) child;
+            } else {
+                return child == null;
+            }
+        }
+        final Object value = values[depth - 1];
+        return value != null && !level.children.containsKey(value);
+    }
+
+    private void evict() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        Entry victim = entries[random.nextInt(size)];
+        for (int i = 1; i < sampleSize; i++) {
+            final Entry candidate = entries[random.nextInt(size)];
+            if (candidate.frequency < victim.frequency) {
+                victim = candidate;
+            }
+        }
+
+        final Entry last = entries[--size];
+        entries[victim.index] = last;
+        last.index = victim.index;
+        entries[size] = null;
+
+        Level level = victim.parent;
+        Object key = victim.value;
+        level.children.remove(key);
+        while (level.children.isEmpty() && level.parent != null) {
+            key = level.value;
+            level = level.parent;
+            level.children.remove(key);
+        }
+        evictionCount.increment();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            entries[i] = null;
+        }
+        size = 0;
+        insertsSinceAging = 0;
+        root.children.clear();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size());
+    }
+
+    public DecisionTree getTree() {
+        return tree;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("CachingDecisionTree");
+        sb.append("{maximumSize=").append(maximumSize);
+        sb.append(", stats=").append(getStats());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Records the node and raw fact value of each step of a walk, and the exception resolve would have
+     * thrown if the walk failed.
+     */
+    private static class PathRecorder implements NodeVisitor {
+        private Node[] nodes = new Node[INITIAL_PATH_LENGTH];
+        private Object[] values = new Object[INITIAL_PATH_LENGTH];
+        private int depth;
+        private InvalidFactException failure;
+
+        @Override
+        public void visitBranch(final AbstractNode node, final DecisionTreeFacts facts, final int branch) {
+            if (depth == nodes.length) {
+                final Node[] grownNodes = new Node[depth * 2];
+                final Object[] grownValues = new Object[depth * 2];
+                System.arraycopy(nodes, 0, grownNodes, 0, depth);
+                System.arraycopy(values, 0, grownValues, 0, depth);
+                nodes = grownNodes;
+                values = grownValues;
+            }
+            nodes[depth] = node;
+            values[depth] = facts.get(node.getName());
+            depth++;
+        }
+
+        @Override
+        public void visitLeaf(final ResultNode leaf) {
+        }
+
+        @Override
+        public void visitFailure(final AbstractNode node, final DecisionTreeFacts facts, final Evaluation.Status status, final InvalidFactException error) {
+            if (status == Evaluation.Status.NO_MAPPING) {
+                failure = new NoMappingDeclaredException(node.getName(), facts.get(node.getName()));
+            } else if (status == Evaluation.Status.MISSING_FACT) {
+                failure = new MissingFactException(node.getName());
+            } else {
+                failure = error;
+            }
+        }
+    }
+
+    private static class Level {
+        private final Node node;
+        private final Level parent;
+        private final Object value;
+        private final Map<Object, Object> children = new ConcurrentHashMap<Object, Object>();
+
+        private Level(final Node node, final Level parent, final Object value) {
+            this.node = node;
+            this.parent = parent;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A cached leaf. The use count is a plain field, deliberately: hits increment it without
+     * synchronization, so two threads hitting the entry at once may count one hit, and it saturates at
+     * MAX_FREQUENCY. Eviction only compares counts within a small sample, for which an approximate count
+     * is enough, and avoiding an atomic write keeps hits free of contention.
+     */
+    private static class Entry {
+        private final Level parent;
+        private final Object value;
+        private final ResultNode leaf;
+        private int index;
+        private int frequency = 1;
+
+        private Entry(final Level parent, final Object value, final ResultNode leaf, final int index) {
+            this.parent = parent;
+            this.value = value;
+            this.leaf = leaf;
+            this.index = index;
+        }
+    }
+
+    public static class Builder {
+        private final DecisionTree tree;
+        private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+        private int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+        public Builder(final DecisionTree tree) {
+            this.tree = tree;
+        }
+
+        /**
+         * Sets how many leaves may be cached, counting one per distinct path of fact values.
+         */
+        public Builder setMaximumSize(final int maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets how many entries are compared when choosing one to evict. Larger samples evict closer to
+         * the least frequently used entry at a higher cost per eviction.
+         */
+        public Builder setSampleSize(final int sampleSize) {
+            this.sampleSize = sampleSize;
+            return this;
+        }
+
+        public CachingDecisionTree build() {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+            } else if (sampleSize <= 0) {
+                throw new IllegalArgumentException("Sample size must be positive: " + sampleSize);
+            }
+            return new CachingDecisionTree(tree, maximumSize, sampleSize);
+        }
+    }
+}
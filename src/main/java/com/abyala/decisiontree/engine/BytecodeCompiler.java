@@ -0,0 +1,601 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.nodes.*;
+import com.abyala.decisiontree.types.InputType;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.abyala.decisiontree.engine.ClassFileWriter.*;
+
+/**
+ * Generates a dedicated class for each tree whose resolve method hard-codes every node as branches over
+ * the facts: integer thresholds become a binary search of constant comparisons, string values become a
+ * switch on their hash code, and shared nodes are jumped to rather than repeated. The hot ranges and keys
+ * of nodes optimized by a {@link ProfileGuidedCompiler} are tested before the search or switch. A second
+ * tryResolve method repeats the same branches but records misses in the evaluation instead of throwing, and
+ * is left out, falling back to the default of translating exceptions, if it does not fit in a method.
+ * <p>
+ * Resolve throws a preallocated MissingFactException, held in an array passed to the generated constructor
+ * alongside the leaves, when a fact is absent. Facts created from the tree's schema are read by slot,
+ * once a {@link SchemaMatcher} has checked their schema on entry, and any others by name.
+ * <p>
+ * Each generated class is defined by its own class loader, so it is unloaded once the engine is no longer
+ * referenced. Trees too large to fit in a single method are compiled by the fallback compiler instead.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class BytecodeCompiler implements EngineCompiler {
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+    private static final int MAX_CODE_LENGTH = Short.MAX_VALUE;
+
+    private static final String ENGINE = "com/abyala/decisiontree/engine/Engine";
+    private static final String FACTS = "com/abyala/decisiontree/DecisionTreeFacts";
+    private static final String INDEXED_FACTS = "com/abyala/decisiontree/IndexedDecisionTreeFacts";
+    private static final String SCHEMA_MATCHER = "com/abyala/decisiontree/engine/SchemaMatcher";
+    private static final String RESULT_NODE = "com/abyala/decisiontree/nodes/ResultNode";
+    private static final String EVALUATION = "com/abyala/decisiontree/Evaluation";
+    private static final String INVALID_FACT = "com/abyala/decisiontree/exceptions/InvalidFactException";
+    private static final String MISSING_FACT = "com/abyala/decisiontree/exceptions/MissingFactException";
+    private static final String NO_MAPPING = "com/abyala/decisiontree/exceptions/NoMappingDeclaredException";
+    private static final String LEAVES_DESCRIPTOR = "[L" + RESULT_NODE + ";";
+    private static final String MISSING_FACTS_DESCRIPTOR = "[L" + MISSING_FACT + ";";
+    private static final String MATCHER_DESCRIPTOR = "L" + SCHEMA_MATCHER + ";";
+
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int ALOAD_3 = 0x2d;
+    private static final int ILOAD = 0x15;
+    private static final int ALOAD = 0x19;
+    private static final int ISTORE = 0x36;
+    private static final int ASTORE = 0x3a;
+    private static final int ILOAD_0 = 0x1a;
+    private static final int ISTORE_0 = 0x3b;
+    private static final int ASTORE_0 = 0x4b;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int AALOAD = 0x32;
+    private static final int DUP = 0x59;
+    private static final int SWAP = 0x5f;
+    private static final int IFEQ = 0x99;
+    private static final int IFNE = 0x9a;
+    private static final int IF_ICMPLT = 0xa1;
+    private static final int IF_ICMPGE = 0xa2;
+    private static final int GOTO = 0xa7;
+    private static final int LOOKUPSWITCH = 0xab;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int NEW = 0xbb;
+    private static final int ATHROW = 0xbf;
+    private static final int IFNULL = 0xc6;
+    private static final int IFNONNULL = 0xc7;
+
+    private final EngineCompiler fallback;
+
+    public BytecodeCompiler() {
+        this(new ProgramCompiler());
+    }
+
+    public BytecodeCompiler(final EngineCompiler fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Engine compile(final Node rootNode) {
+        final String className = "com.abyala.decisiontree.engine.GeneratedEngine" + CLASS_COUNTER.incrementAndGet();
+        final Generation generation = new Generation(className.replace('.', '/'));
+        final byte[] classFile = generation.generate(rootNode);
+        if (classFile == null) {
+            return fallback.compile(rootNode);
+        }
+
+        final ResultNode[] leaves = generation.leaves.toArray(new ResultNode[generation.leaves.size()]);
+        final MissingFactException[] missingFacts = new MissingFactException[generation.missingFactNames.size()];
+        for (int i = 0; i < missingFacts.length; i++) {
+            missingFacts[i] = new MissingFactException(generation.missingFactNames.get(i));
+        }
+        final SchemaMatcher matcher = new SchemaMatcher(generation.slotTypes);
+        try {
+            final Class<?> engineClass = new GeneratedClassLoader(Engine.class.getClassLoader()).define(className, classFile);
+            return (Engine) engineClass.getConstructor(ResultNode[].class, MissingFactException[].class, SchemaMatcher.class).newInstance(leaves, missingFacts, matcher);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not load generated engine " + className, e);
+        }
+    }
+
+    private static class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(final String name, final byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+
+    private static class Generation {
+        private final String className;
+        private final ClassFileWriter writer;
+        private Code code;
+        private boolean recording;
+        private int stringLocal;
+        private int intLocal;
+        private int indexedLocal;
+        private final List<Label> labels = new ArrayList<Label>();
+        private final Map<Node, Label> nodeLabels = new IdentityHashMap<Node, Label>();
+        private final LinkedList<Node> pending = new LinkedList<Node>();
+        private final Map<ResultNode, Integer> leafIndexes = new IdentityHashMap<ResultNode, Integer>();
+        private final List<ResultNode> leaves = new ArrayList<ResultNode>();
+        private final Map<String, Integer> missingFactIndexes = new HashMap<String, Integer>();
+        private final List<String> missingFactNames = new ArrayList<String>();
+        private final Set<InputType> slotTypes = new LinkedHashSet<InputType>();
+
+        Generation(final String className) {
+            this.className = className;
+            this.writer = new ClassFileWriter(className, "java/lang/Object", ENGINE);
+        }
+
+        /**
+         * Returns the class file, or null if the tree does not fit in a single method.
+         */
+        byte[] generate(final Node rootNode) {
+            writer.addField(ACC_PRIVATE | ACC_FINAL, "leaves", LEAVES_DESCRIPTOR);
+            writer.addField(ACC_PRIVATE | ACC_FINAL, "missingFacts", MISSING_FACTS_DESCRIPTOR);
+            writer.addField(ACC_PRIVATE | ACC_FINAL, "matcher", MATCHER_DESCRIPTOR);
+            generateConstructor();
+
+            final Code resolve = generateMethod(rootNode, false);
+            if (resolve == null) {
+                return null;
+            }
+            writer.addMethod(ACC_PUBLIC, "resolve", "(L" + FACTS + ";)L" + RESULT_NODE + ";", resolve, 6, 5);
+
+            final Code tryResolve = generateMethod(rootNode, true);
+            if (tryResolve != null) {
+                writer.addMethod(ACC_PUBLIC, "tryResolve", "(L" + FACTS + ";L" + EVALUATION + ";)V", tryResolve, 6, 6);
+            }
+            return writer.toByteArray();
+        }
+
+        /**
+         * Returns the body of resolve, or of tryResolve if recording is set, or null if it does not fit in a
+         * single method. Resolve keeps the string fact in local 2, the int fact in local 3 and the facts to read
+         * by slot, or null, in local 4; tryResolve takes the evaluation in local 2, so they move up one.
+         */
+        private Code generateMethod(final Node rootNode, final boolean recording) {
+            this.recording = recording;
+            this.stringLocal = recording ? 3 : 2;
+            this.intLocal = recording ? 4 : 3;
+            this.indexedLocal = recording ? 5 : 4;
+            code = new Code();
+            labels.clear();
+            nodeLabels.clear();
+            pending.clear();
+
+            code.op(ALOAD_0);
+            code.op(GETFIELD, writer.fieldConstant(className, "matcher", MATCHER_DESCRIPTOR));
+            code.op(ALOAD_1);
+            code.op(INVOKEVIRTUAL, writer.methodConstant(SCHEMA_MATCHER, "indexed", "(L" + FACTS + ";)L" + INDEXED_FACTS + ";"));
+            local(ASTORE_0, ASTORE, indexedLocal);
+
+            label(rootNode);
+            while (!pending.isEmpty() && code.length() <= MAX_CODE_LENGTH) {
+                final Node node = pending.removeFirst();
+                code.mark(label(node));
+                generateNode(node);
+            }
+
+            if (recording) {
+                // Facts of the wrong type still throw from the getters, so record them in one handler
+                final int handlerAddress = code.length();
+                code.handler(0, handlerAddress, handlerAddress, writer.classConstant(INVALID_FACT));
+                code.op(ALOAD_2);
+                code.op(SWAP);
+                code.op(INVOKEVIRTUAL, writer.methodConstant(EVALUATION, "setInvalidFact", "(L" + INVALID_FACT + ";)V"));
+                code.op(RETURN);
+            }
+            if (code.length() > MAX_CODE_LENGTH) {
+                return null;
+            }
+
+            code.resolve(labels);
+            return code;
+        }
+
+        private void generateConstructor() {
+            final Code constructor = new Code();
+            constructor.op(ALOAD_0);
+            constructor.op(INVOKESPECIAL, writer.methodConstant("java/lang/Object", "<init>", "()V"));
+            constructor.op(ALOAD_0);
+            constructor.op(ALOAD_1);
+            constructor.op(PUTFIELD, writer.fieldConstant(className, "leaves", LEAVES_DESCRIPTOR));
+            constructor.op(ALOAD_0);
+            constructor.op(ALOAD_2);
+            constructor.op(PUTFIELD, writer.fieldConstant(className, "missingFacts", MISSING_FACTS_DESCRIPTOR));
+            constructor.op(ALOAD_0);
+            constructor.op(ALOAD_3);
+            constructor.op(PUTFIELD, writer.fieldConstant(className, "matcher", MATCHER_DESCRIPTOR));
+            constructor.op(RETURN);
+            writer.addMethod(ACC_PUBLIC, "<init>", "(" + LEAVES_DESCRIPTOR + MISSING_FACTS_DESCRIPTOR + MATCHER_DESCRIPTOR + ")V", constructor, 2, 4);
+        }
+
+        private void generateNode(final Node node) {
+            if (node instanceof BooleanNode) {
+                generateBooleanNode((BooleanNode) node);
+            } else if (node instanceof IntegerNode) {
+                generateIntegerNode((IntegerNode) node);
+            } else if (node instanceof StringNode) {
+                generateStringNode((StringNode) node);
+            } else {
+                throw new IllegalArgumentException("Cannot compile node of type " + node.getClass().getName());
+            }
+        }
+
+        private void generateBooleanNode(final BooleanNode node) {
+            loadPrimitiveFact(node, "getBooleanValue", "getBoolean", "Z");
+            final Label falseLabel = newLabel();
+            code.branch(IFEQ, falseLabel);
+            jumpTo(node.getTrueValue(), node.getName());
+            code.mark(falseLabel);
+            jumpTo(node.getFalseValue(), node.getName());
+        }
+
+        private void generateIntegerNode(final IntegerNode node) {
+            loadPrimitiveFact(node, "getIntValue", "getInt", "I");
+            local(ISTORE_0, ISTORE, intLocal);
+
+            final int[] thresholds = node.getThresholds();
+            final Object[] children = node.getChildren();
+            for (int hotThreshold : node.getHotThresholds()) {
+                final int index = Arrays.binarySearch(thresholds, hotThreshold);
+                final Label notHot = newLabel();
+                local(ILOAD_0, ILOAD, intLocal);
+                pushInt(hotThreshold);
+                code.branch(IF_ICMPLT, notHot);
+                if (index + 1 < thresholds.length) {
+                    local(ILOAD_0, ILOAD, intLocal);
+                    pushInt(thresholds[index + 1]);
+                    code.branch(IF_ICMPGE, notHot);
+                }
+                jumpTo(children[index], node.getName());
+                code.mark(notHot);
+            }
+            generateThresholdSearch(node.getName(), thresholds, children, 0, thresholds.length - 1, thresholds[0] == Integer.MIN_VALUE);
+        }
+
+        /**
+         * Picks the child of the greatest threshold in [low, high] that does not exceed the fact value, knowing
+         * that the value is below the threshold after high, and at least the threshold at low if lowChecked is set.
+         */
+        private void generateThresholdSearch(final String name, final int[] thresholds, final Object[] children, final int low, final int high, final boolean lowChecked) {
+            if (low == high) {
+                if (!lowChecked) {
+                    final Label noMapping = newLabel();
+                    local(ILOAD_0, ILOAD, intLocal);
+                    pushInt(thresholds[low]);
+                    code.branch(IF_ICMPLT, noMapping);
+                    jumpTo(children[low], name);
+                    code.mark(noMapping);
+                    jumpTo(null, name);
+                } else {
+                    jumpTo(children[low], name);
+                }
+            } else {
+                final int middle = (low + high + 1) >>> 1;
+                final Label below = newLabel();
+                local(ILOAD_0, ILOAD, intLocal);
+                pushInt(thresholds[middle]);
+                code.branch(IF_ICMPLT, below);
+                generateThresholdSearch(name, thresholds, children, middle, high, true);
+                code.mark(below);
+                generateThresholdSearch(name, thresholds, children, low, middle - 1, lowChecked);
+            }
+        }
+
+        private void generateStringNode(final StringNode node) {
+            loadStringFact(node);
+            for (String hotKey : node.getHotKeys()) {
+                final Label notHot = newLabel();
+                local(ALOAD_0, ALOAD, stringLocal);
+                pushConstant(writer.stringConstant(hotKey));
+                code.op(INVOKEVIRTUAL, writer.methodConstant("java/lang/String", "equals", "(Ljava/lang/Object;)Z"));
+                code.branch(IFEQ, notHot);
+                jumpTo(node.getChildren().get(hotKey), node.getName());
+                code.mark(notHot);
+            }
+
+            final SortedMap<Integer, List<Map.Entry<String, Object>>> hashes = new TreeMap<Integer, List<Map.Entry<String, Object>>>();
+            for (Map.Entry<String, Object> entry : node.getChildren().entrySet()) {
+                List<Map.Entry<String, Object>> entries = hashes.get(entry.getKey().hashCode());
+                if (entries == null) {
+                    entries = new ArrayList<Map.Entry<String, Object>>();
+                    hashes.put(entry.getKey().hashCode(), entries);
+                }
+                entries.add(entry);
+            }
+
+            local(ALOAD_0, ALOAD, stringLocal);
+            code.op(INVOKEVIRTUAL, writer.methodConstant("java/lang/String", "hashCode", "()I"));
+
+            final int switchAddress = code.length();
+            code.op(LOOKUPSWITCH);
+            while (code.length() % 4 != 0) {
+                code.u1(0);
+            }
+            final Label defaultLabel = newLabel();
+            code.offset(switchAddress, defaultLabel);
+            code.u4(hashes.size());
+            final List<Label> caseLabels = new ArrayList<Label>();
+            for (Integer hash : hashes.keySet()) {
+                final Label caseLabel = newLabel();
+                caseLabels.add(caseLabel);
+                code.u4(hash);
+                code.offset(switchAddress, caseLabel);
+            }
+
+            int caseIndex = 0;
+            for (List<Map.Entry<String, Object>> entries : hashes.values()) {
+                code.mark(caseLabels.get(caseIndex++));
+                for (Map.Entry<String, Object> entry : entries) {
+                    final Label nextLabel = newLabel();
+                    local(ALOAD_0, ALOAD, stringLocal);
+                    pushConstant(writer.stringConstant(entry.getKey()));
+                    code.op(INVOKEVIRTUAL, writer.methodConstant("java/lang/String", "equals", "(Ljava/lang/Object;)Z"));
+                    code.branch(IFEQ, nextLabel);
+                    jumpTo(entry.getValue(), node.getName());
+                    code.mark(nextLabel);
+                }
+                code.branch(GOTO, defaultLabel);
+            }
+
+            code.mark(defaultLabel);
+            jumpTo(node.getDefaultChild(), node.getName());
+        }
+
+        /**
+         * Pushes the node's primitive fact, passing the getter the preallocated MissingFactException to throw if
+         * it is absent. When recording, an absent fact is checked for first and recorded instead.
+         */
+        private void loadPrimitiveFact(final AbstractNode node, final String getter, final String slotGetter, final String returnType) {
+            final String name = node.getName();
+            final Label loaded = loadSlotFact(node, slotGetter, returnType);
+            if (recording) {
+                final Label present = newLabel();
+                code.op(ALOAD_1);
+                pushConstant(writer.stringConstant(name));
+                code.op(INVOKEINTERFACE, writer.interfaceMethodConstant(FACTS, "hasFact", "(Ljava/lang/String;)Z"));
+                code.u1(2).u1(0);
+                code.branch(IFNE, present);
+                missingFact(name);
+                code.mark(present);
+
+                code.op(ALOAD_1);
+                pushConstant(writer.stringConstant(name));
+                code.op(INVOKEINTERFACE, writer.interfaceMethodConstant(FACTS, getter, "(Ljava/lang/String;)" + returnType));
+                code.u1(2).u1(0);
+            } else {
+                code.op(ALOAD_1);
+                pushConstant(writer.stringConstant(name));
+                pushMissingFact(name);
+                code.op(INVOKEINTERFACE, writer.interfaceMethodConstant(FACTS, getter, "(Ljava/lang/String;L" + MISSING_FACT + ";)" + returnType));
+                code.u1(3).u1(0);
+            }
+            if (loaded != null) {
+                code.mark(loaded);
+            }
+        }
+
+        /**
+         * Stores the node's string fact in the string local, and throws or records a missing fact if it is null.
+         */
+        private void loadStringFact(final AbstractNode node) {
+            final String name = node.getName();
+            final Label loaded = loadSlotFact(node, "getString", "Ljava/lang/String;");
+            code.op(ALOAD_1);
+            pushConstant(writer.stringConstant(name));
+            code.op(INVOKEINTERFACE, writer.interfaceMethodConstant(FACTS, "getString", "(Ljava/lang/String;)Ljava/lang/String;"));
+            code.u1(2).u1(0);
+            if (loaded != null) {
+                code.mark(loaded);
+            }
+            local(ASTORE_0, ASTORE, stringLocal);
+
+            final Label present = newLabel();
+            local(ALOAD_0, ALOAD, stringLocal);
+            code.branch(IFNONNULL, present);
+            missingFact(name);
+            code.mark(present);
+        }
+
+        /**
+         * If the node's input has a slot, pushes its fact read by slot when the facts can be, and otherwise
+         * falls through to the read by name that the caller emits next. Returns the label that both reads end
+         * at, or null if the input has no slot and is only read by name. When recording, an unset slot is
+         * recorded as a missing fact.
+         */
+        private Label loadSlotFact(final AbstractNode node, final String slotGetter, final String returnType) {
+            final int slot = node.getType().getSlot();
+            if (slot < 0) {
+                return null;
+            }
+            slotTypes.add(node.getType());
+
+            final Label byName = newLabel();
+            final Label loaded = newLabel();
+            local(ALOAD_0, ALOAD, indexedLocal);
+            code.branch(IFNULL, byName);
+            if (recording) {
+                final Label present = newLabel();
+                local(ALOAD_0, ALOAD, indexedLocal);
+                pushInt(slot);
+                code.op(INVOKEVIRTUAL, writer.methodConstant(INDEXED_FACTS, "isSet", "(I)Z"));
+                code.branch(IFNE, present);
+                missingFact(node.getName());
+                code.mark(present);
+            }
+            local(ALOAD_0, ALOAD, indexedLocal);
+            pushInt(slot);
+            code.op(INVOKEVIRTUAL, writer.methodConstant(INDEXED_FACTS, slotGetter, "(I)" + returnType));
+            code.branch(GOTO, loaded);
+            code.mark(byName);
+            return loaded;
+        }
+
+        private void missingFact(final String name) {
+            if (recording) {
+                code.op(ALOAD_2);
+                pushConstant(writer.stringConstant(name));
+                code.op(INVOKEVIRTUAL, writer.methodConstant(EVALUATION, "setMissingFact", "(Ljava/lang/String;)V"));
+                code.op(RETURN);
+            } else {
+                pushMissingFact(name);
+                code.op(ATHROW);
+            }
+        }
+
+        /**
+         * Pushes the preallocated MissingFactException for the named fact.
+         */
+        private void pushMissingFact(final String name) {
+            Integer index = missingFactIndexes.get(name);
+            if (index == null) {
+                index = missingFactNames.size();
+                missingFactNames.add(name);
+                missingFactIndexes.put(name, index);
+            }
+            code.op(ALOAD_0);
+            code.op(GETFIELD, writer.fieldConstant(className, "missingFacts", MISSING_FACTS_DESCRIPTOR));
+            pushInt(index);
+            code.op(AALOAD);
+        }
+
+        /**
+         * Emits the transfer to a child: a leaf is returned directly, a node is jumped to, and a missing child
+         * throws a NoMappingDeclaredException for the input. When recording, the leaf or the missing mapping is
+         * set on the evaluation instead.
+         */
+        private void jumpTo(final Object child, final String name) {
+            if (child instanceof ResultNode) {
+                Integer index = leafIndexes.get(child);
+                if (index == null) {
+                    index = leaves.size();
+                    leaves.add((ResultNode) child);
+                    leafIndexes.put((ResultNode) child, index);
+                }
+                if (recording) {
+                    code.op(ALOAD_2);
+                }
+                code.op(ALOAD_0);
+                code.op(GETFIELD, writer.fieldConstant(className, "leaves", LEAVES_DESCRIPTOR));
+                pushInt(index);
+                code.op(AALOAD);
+                if (recording) {
+                    code.op(INVOKEVIRTUAL, writer.methodConstant(EVALUATION, "setMatched", "(L" + RESULT_NODE + ";)V"));
+                    code.op(RETURN);
+                } else {
+                    code.op(ARETURN);
+                }
+            } else if (child instanceof Node) {
+                code.branch(GOTO, label((Node) child));
+            } else if (child == null && recording) {
+                code.op(ALOAD_2);
+                pushConstant(writer.stringConstant(name));
+                code.op(ALOAD_1);
+                pushConstant(writer.stringConstant(name));
+                code.op(INVOKEINTERFACE, writer.interfaceMethodConstant(FACTS, "get", "(Ljava/lang/String;)Ljava/lang/Object;"));
+                code.u1(2).u1(0);
+                code.op(INVOKEVIRTUAL, writer.methodConstant(EVALUATION, "setNoMapping", "(Ljava/lang/String;Ljava/lang/Object;)V"));
+                code.op(RETURN);
+            } else if (child == null) {
+                code.op(NEW, writer.classConstant(NO_MAPPING));
+                code.op(DUP);
+                pushConstant(writer.stringConstant(name));
+                code.op(ALOAD_1);
+                pushConstant(writer.stringConstant(name));
+                code.op(INVOKEINTERFACE, writer.interfaceMethodConstant(FACTS, "get", "(Ljava/lang/String;)Ljava/lang/Object;"));
+                code.u1(2).u1(0);
+                code.op(INVOKESPECIAL, writer.methodConstant(NO_MAPPING, "<init>", "(Ljava/lang/String;Ljava/lang/Object;)V"));
+                code.op(ATHROW);
+            } else {
+                throw new IllegalStateException("Unexpected child value: " + child);
+            }
+        }
+
+        private Label label(final Node node) {
+            Label label = nodeLabels.get(node);
+            if (label == null) {
+                label = newLabel();
+                nodeLabels.put(node, label);
+                pending.add(node);
+            }
+            return label;
+        }
+
+        private Label newLabel() {
+            final Label label = new Label();
+            labels.add(label);
+            return label;
+        }
+
+        /**
+         * Emits the one-byte form of a load or store for locals 0 to 3, and the indexed form otherwise.
+         */
+        private void local(final int shortOpcode, final int opcode, final int local) {
+            if (local <= 3) {
+                code.op(shortOpcode + local);
+            } else {
+                code.op(opcode).u1(local);
+            }
+        }
+
+        private void pushInt(final int value) {
+            if (value >= -1 && value <= 5) {
+                code.op(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                code.op(BIPUSH).u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                code.op(SIPUSH, value);
+            } else {
+                pushConstant(writer.integerConstant(value));
+            }
+        }
+
+        private void pushConstant(final int index) {
+            if (index <= 0xFF) {
+                code.op(LDC).u1(index);
+            } else {
+                code.op(LDC_W, index);
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer for the class files generated by {@link BytecodeCompiler}. Classes are written as version 49
+ * so that the JVM infers stack map frames itself, and only support the constants and members that the
+ * compiler needs.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+class ClassFileWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> constants = new HashMap<String, Integer>();
+    private int poolCount = 1;
+
+    private final ByteArrayOutputStream memberBytes = new ByteArrayOutputStream();
+    private final DataOutputStream members = new DataOutputStream(memberBytes);
+    private int fieldCount;
+    private int methodCount;
+    private final List<byte[]> fields = new ArrayList<byte[]>();
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    ClassFileWriter(final String internalName, final String superName, final String... interfaceNames) {
+        thisClass = classConstant(internalName);
+        superClass = classConstant(superName);
+        interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classConstant(interfaceNames[i]);
+        }
+    }
+
+    int utf8Constant(final String value) {
+        final String key = "U" + value;
+        Integer index = constants.get(key);
+        if (index == null) {
+            try {
+                pool.writeByte(CONSTANT_UTF8);
+                pool.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Constant too long to encode: " + value, e);
+            }
+            index = register(key);
+        }
+        return index;
+    }
+
+    int integerConstant(final int value) {
+        final String key = "I" + value;
+        Integer index = constants.get(key);
+        if (index == null) {
+            writeInt(CONSTANT_INTEGER, value);
+            index = register(key);
+        }
+        return index;
+    }
+
+    int stringConstant(final String value) {
+        final String key = "S" + value;
+        Integer index = constants.get(key);
+        if (index == null) {
+            final int utf8 = utf8Constant(value);
+            writeShorts(CONSTANT_STRING, utf8);
+            index = register(key);
+        }
+        return index;
+    }
+
+    int classConstant(final String internalName) {
+        final String key = "C" + internalName;
+        Integer index = constants.get(key);
+        if (index == null) {
+            final int utf8 = utf8Constant(internalName);
+            writeShorts(CONSTANT_CLASS, utf8);
+            index = register(key);
+        }
+        return index;
+    }
+
+    int fieldConstant(final String owner, final String name, final String descriptor) {
+        return memberConstant(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    int methodConstant(final String owner, final String name, final String descriptor) {
+        return memberConstant(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    int interfaceMethodConstant(final String owner, final String name, final String descriptor) {
+        return memberConstant(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor);
+    }
+
+    private int memberConstant(final int tag, final String owner, final String name, final String descriptor) {
+        final String key = tag + owner + "." + name + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            final int ownerIndex = classConstant(owner);
+            final int nameAndType = nameAndTypeConstant(name, descriptor);
+            writeShorts(tag, ownerIndex, nameAndType);
+            index = register(key);
+        }
+        return index;
+    }
+
+    private int nameAndTypeConstant(final String name, final String descriptor) {
+        final String key = "N" + name + ":" + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            final int nameIndex = utf8Constant(name);
+            final int descriptorIndex = utf8Constant(descriptor);
+            writeShorts(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+            index = register(key);
+        }
+        return index;
+    }
+
+    void addField(final int access, final String name, final String descriptor) {
+        final int nameIndex = utf8Constant(name);
+        final int descriptorIndex = utf8Constant(descriptor);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fields.add(bytes.toByteArray());
+        fieldCount++;
+    }
+
+    void addMethod(final int access, final String name, final String descriptor, final Code code, final int maxStack, final int maxLocals) {
+        final int nameIndex = utf8Constant(name);
+        final int descriptorIndex = utf8Constant(descriptor);
+        final int codeAttribute = utf8Constant("Code");
+        final byte[] bytecode = code.toByteArray();
+        final List<int[]> handlers = code.handlers;
+        try {
+            members.writeShort(access);
+            members.writeShort(nameIndex);
+            members.writeShort(descriptorIndex);
+            members.writeShort(1);
+            members.writeShort(codeAttribute);
+            members.writeInt(12 + bytecode.length + 8 * handlers.size());
+            members.writeShort(maxStack);
+            members.writeShort(maxLocals);
+            members.writeInt(bytecode.length);
+            members.write(bytecode);
+            members.writeShort(handlers.size());
+            for (int[] handler : handlers) {
+                for (int value : handler) {
+                    members.writeShort(value);
+                }
+            }
+            members.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methodCount++;
+    }
+
+    byte[] toByteArray() {
+        if (poolCount > 0xFFFF) {
+            throw new IllegalStateException("Constant pool too large: " + poolCount);
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int anInterface : interfaces) {
+                out.writeShort(anInterface);
+            }
+            out.writeShort(fieldCount);
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methodCount);
+            out.write(memberBytes.toByteArray());
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private int register(final String key) {
+        final int index = poolCount;
+        poolCount++;
+        constants.put(key, index);
+        return index;
+    }
+
+    private void writeInt(final int tag, final int value) {
+        try {
+            pool.writeByte(tag);
+            pool.writeInt(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeShorts(final int tag, final int... values) {
+        try {
+            pool.writeByte(tag);
+            for (int value : values) {
+                pool.writeShort(value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Growable bytecode buffer with forward-referenced branch labels.
+     */
+    static class Code {
+        private byte[] bytes = new byte[256];
+        private int length;
+        private final List<int[]> handlers = new ArrayList<int[]>();
+
+        int length() {
+            return length;
+        }
+
+        Code op(final int opcode) {
+            ensure(1);
+            bytes[length++] = (byte) opcode;
+            return this;
+        }
+
+        Code op(final int opcode, final int u2) {
+            op(opcode);
+            return u2(u2);
+        }
+
+        Code u1(final int value) {
+            return op(value);
+        }
+
+        Code u2(final int value) {
+            ensure(2);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        Code u4(final int value) {
+            u2(value >>> 16);
+            return u2(value);
+        }
+
+        /**
+         * Emits a branch instruction with a two-byte offset to the label.
+         */
+        Code branch(final int opcode, final Label label) {
+            final int address = length;
+            op(opcode);
+            label.reference(address, length, false);
+            return u2(0);
+        }
+
+        /**
+         * Emits a four-byte offset to the label, relative to the instruction at the given address.
+         */
+        Code offset(final int instructionAddress, final Label label) {
+            label.reference(instructionAddress, length, true);
+            return u4(0);
+        }
+
+        /**
+         * Adds an exception table entry that sends exceptions of the class constant thrown in [start, end) to
+         * the handler address.
+         */
+        void handler(final int start, final int end, final int handlerAddress, final int catchType) {
+            handlers.add(new int[]{start, end, handlerAddress, catchType});
+        }
+
+        void mark(final Label label) {
+            label.position = length;
+        }
+
+        void resolve(final List<Label> labels) {
+            for (Label label : labels) {
+                if (label.position < 0 && !label.fixups.isEmpty()) {
+                    throw new IllegalStateException("Label was referenced but never placed");
+                }
+                for (int[] fixup : label.fixups) {
+                    final int offset = label.position - fixup[0];
+                    if (fixup[2] == 0) {
+                        bytes[fixup[1]] = (byte) (offset >>> 8);
+                        bytes[fixup[1] + 1] = (byte) offset;
+                    } else {
+                        bytes[fixup[1]] = (byte) (offset >>> 24);
+                        bytes[fixup[1] + 1] = (byte) (offset >>> 16);
+                        bytes[fixup[1] + 2] = (byte) (offset >>> 8);
+                        bytes[fixup[1] + 3] = (byte) offset;
+                    }
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            final byte[] result = new byte[length];
+            System.arraycopy(bytes, 0, result, 0, length);
+            return result;
+        }
+
+        private void ensure(final int size) {
+            if (length + size > bytes.length) {
+                final byte[] grown = new byte[Math.max(bytes.length * 2, length + size)];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+        }
+    }
+
+    static class Label {
+        private int position = -1;
+        private final List<int[]> fixups = new ArrayList<int[]>();
+
+        boolean isPlaced() {
+            return position >= 0;
+        }
+
+        private void reference(final int instructionAddress, final int offsetPosition, final boolean wide) {
+            fixups.add(new int[]{instructionAddress, offsetPosition, wide ? 1 : 0});
+        }
+    }
+}
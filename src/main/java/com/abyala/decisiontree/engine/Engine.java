@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+/**
+ * Strategy used by a {@link com.abyala.decisiontree.DecisionTree} to find the result node matching a set of facts.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public interface Engine {
+    ResultNode resolve(DecisionTreeFacts facts) throws InvalidFactException;
+
+    /**
+     * Records the outcome of resolving the facts in the evaluation instead of throwing. The default
+     * implementation translates the exceptions of resolve, which are cheap because they carry no stack
+     * trace; engines that can detect misses directly should override it. The node, program and bytecode
+     * engines all do, so an absent fact or unmapped value costs no exception with them.
+     */
+    default void tryResolve(final DecisionTreeFacts facts, final Evaluation evaluation) {
+        try {
+            evaluation.setMatched(resolve(facts));
+        } catch (MissingFactException e) {
+            evaluation.setMissingFact(e.getFieldName());
+        } catch (NoMappingDeclaredException e) {
+            evaluation.setNoMapping(e.getFieldName(), e.getFieldValue());
+        } catch (InvalidFactException e) {
+            evaluation.setInvalidFact(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+/**
+ * Interprets the tree by walking the parsed {@link Node} graph directly.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class NodeEngine implements Engine {
+    private final Node rootNode;
+
+    public NodeEngine(final Node rootNode) {
+        this.rootNode = rootNode;
+    }
+
+    @Override
+    public ResultNode resolve(final DecisionTreeFacts facts) throws InvalidFactException {
+        return rootNode.resolve(facts);
+    }
+
+    @Override
+    public void tryResolve(final DecisionTreeFacts facts, final Evaluation evaluation) {
+        rootNode.walk(facts, evaluation);
+    }
+
+    public Node getRootNode() {
+        return rootNode;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("NodeEngine");
+        sb.append("{rootNode=").append(rootNode);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
+import com.abyala.decisiontree.nodes.AbstractNode;
+import com.abyala.decisiontree.nodes.Node;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Compiles a tree into a copy of its nodes that checks the branches most often taken in a profile ahead
+ * of the general lookup: integer nodes test their hottest ranges before searching their thresholds, and
+ * string nodes compare their hottest keys before hashing. The copy is then compiled by the delegate, so
+ * profile-guided trees can still be interpreted, generated as bytecode or tiered. The interpreter and
+ * BytecodeCompiler check the hot branches first; ProgramCompiler keeps its usual lookups.
+ * <p>
+ * The profile is the metrics recorded while the tree was instrumented, keyed by the tree's original nodes.
+ * While metrics are enabled, evaluations run on the compiled copy and the sampled branch counts are still
+ * taken from the original nodes, so the profile stays usable for recompiling. See
+ * {@link com.abyala.decisiontree.DecisionTree#optimize(DecisionTreeMetrics)} to recompile a tree with the
+ * compiler it already uses.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ProfileGuidedCompiler implements EngineCompiler {
+    private final DecisionTreeMetrics profile;
+    private final EngineCompiler delegate;
+
+    /**
+     * Creates a compiler that interprets the optimized nodes.
+     */
+    public ProfileGuidedCompiler(final DecisionTreeMetrics profile) {
+        this(profile, new NodeCompiler());
+    }
+
+    public ProfileGuidedCompiler(final DecisionTreeMetrics profile, final EngineCompiler delegate) {
+        this.profile = profile;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Engine compile(final Node rootNode) {
+        final Node optimized = rootNode instanceof AbstractNode ? ((AbstractNode) rootNode).optimize(profile, new IdentityHashMap<Node, Node>()) : rootNode;
+        return delegate.compile(optimized);
+    }
+
+    /**
+     * Returns the compiler that compiles the optimized nodes.
+     */
+    public EngineCompiler getDelegate() {
+        return delegate;
+    }
+}
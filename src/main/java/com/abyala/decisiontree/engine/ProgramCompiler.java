@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.nodes.*;
+
+import java.util.*;
+
+import static com.abyala.decisiontree.engine.ProgramEngine.*;
+
+/**
+ * Flattens a validated node graph into a {@link ProgramEngine}. Nodes and results that are shared through
+ * references are only emitted once.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ProgramCompiler implements EngineCompiler {
+
+    @Override
+    public ProgramEngine compile(final Node rootNode) {
+        return new Assembly().assemble(rootNode);
+    }
+
+    private static class Assembly {
+        private int[] code = new int[64];
+        private int length;
+        private final List<String> inputs = new ArrayList<String>();
+        private final List<Map<String, Integer>> tables = new ArrayList<Map<String, Integer>>();
+        private final List<ResultNode> leaves = new ArrayList<ResultNode>();
+        private final Map<Object, Integer> refs = new IdentityHashMap<Object, Integer>();
+
+        ProgramEngine assemble(final Node rootNode) {
+            emit(rootNode);
+            return new ProgramEngine(Arrays.copyOf(code, length),
+                    inputs.toArray(new String[inputs.size()]),
+                    tableArray(),
+                    leaves.toArray(new ResultNode[leaves.size()]));
+        }
+
+        /**
+         * Copies the string tables into an array. An array of Map&lt;String, Integer&gt; cannot be created
+         * directly, but the raw array only ever holds the tables built by emit.
+         */
+        @SuppressWarnings("unchecked")
+        private Map<String, Integer>[] tableArray() {
+            return tables.toArray(new Map[tables.size()]);
+        }
+
+        private int ref(final Object child) {
+            if (child == null) {
+                return NO_MAPPING;
+            }
+
+            final Integer existing = refs.get(child);
+            if (existing != null) {
+                return existing;
+            } else if (child instanceof ResultNode) {
+                final int ref = ~leaves.size();
+                leaves.add((ResultNode) child);
+                refs.put(child, ref);
+                return ref;
+            } else if (child instanceof Node) {
+                return emit((Node) child);
+            } else {
+                throw new IllegalStateException("Unexpected child value: " + child);
+            }
+        }
+
+        private int emit(final Node node) {
+            final int offset;
+            if (node instanceof BooleanNode) {
+                final BooleanNode booleanNode = (BooleanNode) node;
+                offset = reserve(node, OP_BOOLEAN, 4);
+                patch(offset + 2, ref(booleanNode.getTrueValue()));
+                patch(offset + 3, ref(booleanNode.getFalseValue()));
+            } else if (node instanceof IntegerNode) {
+                final IntegerNode integerNode = (IntegerNode) node;
+                final int[] thresholds = integerNode.getThresholds();
+                final Object[] children = integerNode.getChildren();
+                offset = reserve(node, OP_INTEGER, 3 + 2 * thresholds.length);
+                code[offset + 2] = thresholds.length;
+                for (int i = 0; i < thresholds.length; i++) {
+                    final int from = thresholds.length - 1 - i;
+                    code[offset + 3 + 2 * i] = thresholds[from];
+                    patch(offset + 4 + 2 * i, ref(children[from]));
+                }
+            } else if (node instanceof StringNode) {
+                final StringNode stringNode = (StringNode) node;
+                final Map<String, Integer> table = new HashMap<String, Integer>();
+                offset = reserve(node, OP_STRING, 4);
+                code[offset + 2] = tables.size();
+                tables.add(table);
+                for (Map.Entry<String, Object> entry : stringNode.getChildren().entrySet()) {
+                    table.put(entry.getKey(), ref(entry.getValue()));
+                }
+                patch(offset + 3, ref(stringNode.getDefaultChild()));
+            } else {
+                throw new IllegalArgumentException("Cannot compile node of type " + node.getClass().getName());
+            }
+
+            return offset;
+        }
+
+        /**
+         * Writes a ref once it is known. Resolving a ref may emit more code and grow the array, so the
+         * array must not be dereferenced until afterwards.
+         */
+        private void patch(final int position, final int ref) {
+            code[position] = ref;
+        }
+
+        private int reserve(final Node node, final int opcode, final int size) {
+            final int offset = length;
+            if (length + size > code.length) {
+                code = Arrays.copyOf(code, Math.max(code.length * 2, length + size));
+            }
+            length += size;
+
+            code[offset] = opcode;
+            code[offset + 1] = inputIndex(node.getName());
+            refs.put(node, offset);
+            return offset;
+        }
+
+        private int inputIndex(final String name) {
+            int index = inputs.indexOf(name);
+            if (index < 0) {
+                index = inputs.size();
+                inputs.add(name);
+            }
+            return index;
+        }
+    }
+}
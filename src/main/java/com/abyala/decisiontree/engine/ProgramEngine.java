@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+import java.util.Map;
+
+/**
+ * Evaluates a tree that {@link ProgramCompiler} has flattened into an int array, using a single loop
+ * instead of recursing through the node graph.
+ * <p>
+ * Every node occupies a run of ints starting with its opcode and the index of its input name:
+ * <pre>
+ *   BOOLEAN: [OP_BOOLEAN, input, trueRef, falseRef]
+ *   INTEGER: [OP_INTEGER, input, count, threshold1, ref1, ..., thresholdN, refN]  (thresholds descending)
+ *   STRING:  [OP_STRING, input, table, defaultRef]
+ * </pre>
+ * A ref of zero or more is the offset of another node, a negative ref is the complement of an index
+ * into the leaves, and {@link #NO_MAPPING} means that no child is mapped. The tryResolve loop checks for
+ * absent facts and unmapped values itself, so only facts of the wrong type throw. Resolve throws a
+ * preallocated exception for each input when its fact is absent.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ProgramEngine implements Engine {
+    static final int OP_BOOLEAN = 0;
+    static final int OP_INTEGER = 1;
+    static final int OP_STRING = 2;
+
+    static final int NO_MAPPING = Integer.MIN_VALUE;
+
+    private final int[] code;
+    private final String[] inputs;
+    private final MissingFactException[] missingFacts;
+    private final Map<String, Integer>[] tables;
+    private final ResultNode[] leaves;
+
+    ProgramEngine(final int[] code, final String[] inputs, final Map<String, Integer>[] tables, final ResultNode[] leaves) {
+        this.code = code;
+        this.inputs = inputs;
+        this.missingFacts = new MissingFactException[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            missingFacts[i] = new MissingFactException(inputs[i]);
+        }
+        this.tables = tables;
+        this.leaves = leaves;
+    }
+
+    @Override
+    public ResultNode resolve(final DecisionTreeFacts facts) throws InvalidFactException {
+        int pc = 0;
+        while (true) {
+            final String input = inputs[code[pc + 1]];
+            final int next = next(pc, input, facts);
+            if (next >= 0) {
+                pc = next;
+            } else if (next == NO_MAPPING) {
+                throw new NoMappingDeclaredException(input, facts.get(input));
+            } else {
+                return leaves[~next];
+            }
+        }
+    }
+
+    @Override
+    public void tryResolve(final DecisionTreeFacts facts, final Evaluation evaluation) {
+        int pc = 0;
+        try {
+            while (true) {
+                final String input = inputs[code[pc + 1]];
+                if (!facts.hasFact(input)) {
+                    evaluation.setMissingFact(input);
+                    return;
+                }
+
+                final int next = next(pc, input, facts);
+                if (next >= 0) {
+                    pc = next;
+                } else if (next == NO_MAPPING) {
+                    evaluation.setNoMapping(input, facts.get(input));
+                    return;
+                } else {
+                    evaluation.setMatched(leaves[~next]);
+                    return;
+                }
+            }
+        } catch (InvalidFactException e) {
+            evaluation.setInvalidFact(e);
+        }
+    }
+
+    /**
+     * Returns the ref selected by the node at pc for the value of its input.
+     */
+    private int next(final int pc, final String input, final DecisionTreeFacts facts) throws InvalidFactException {
+        switch (code[pc]) {
+            case OP_BOOLEAN: {
+                return facts.getBooleanValue(input, missingFacts[code[pc + 1]]) ? code[pc + 2] : code[pc + 3];
+            }
+            case OP_INTEGER: {
+                final int key = facts.getIntValue(input, missingFacts[code[pc + 1]]);
+                final int end = pc + 3 + 2 * code[pc + 2];
+                for (int i = pc + 3; i < end; i += 2) {
+                    if (key >= code[i]) {
+                        return code[i + 1];
+                    }
+                }
+                return NO_MAPPING;
+            }
+            case OP_STRING: {
+                final String value = facts.getString(input);
+                if (value == null) {
+                    throw missingFacts[code[pc + 1]];
+                }
+                final Integer ref = tables[code[pc + 2]].get(value);
+                return ref == null ? code[pc + 3] : ref;
+            }
+            default:
+                throw new IllegalStateException("Unknown opcode " + code[pc] + " at offset " + pc);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("ProgramEngine");
+        sb.append("{codeLength=").append(code.length);
+        sb.append(", inputs=").append(inputs.length);
+        sb.append(", leaves=").append(leaves.length);
+        sb.append('}');
+        return sb.toString();
+    }
+}
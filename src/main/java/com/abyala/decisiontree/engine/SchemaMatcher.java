@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.IndexedDecisionTreeFacts;
+import com.abyala.decisiontree.InputSchema;
+import com.abyala.decisiontree.types.InputType;
+
+import java.util.Collection;
+
+/**
+ * Decides whether a compiled engine may read facts by slot: they must be IndexedDecisionTreeFacts whose
+ * schema holds every input the engine reads by slot. The last schema that matched is remembered, so facts
+ * created from the tree's own schema cost one type check and one reference comparison. Public only so that
+ * engines generated by {@link BytecodeCompiler}, which are defined by their own class loaders, can call it.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public final class SchemaMatcher {
+    private final InputType[] types;
+    private InputSchema matched;
+
+    SchemaMatcher(final Collection<InputType> types) {
+        this.types = types.toArray(new InputType[types.size()]);
+    }
+
+    /**
+     * Returns the facts as IndexedDecisionTreeFacts if they can be read by slot, or null if they must be
+     * read by name.
+     */
+    public IndexedDecisionTreeFacts indexed(final DecisionTreeFacts facts) {
+        if (!(facts instanceof IndexedDecisionTreeFacts)) {
+            return null;
+        }
+
+        final IndexedDecisionTreeFacts indexed = (IndexedDecisionTreeFacts) facts;
+        final InputSchema schema = indexed.getSchema();
+        if (schema != matched) {
+            for (InputType type : types) {
+                if (!schema.contains(type.getSlot(), type)) {
+                    return null;
+                }
+            }
+            // A racing thread at worst repeats the check, since schemas are immutable
+            matched = schema;
+        }
+        return indexed;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("SchemaMatcher");
+        sb.append("{inputs=").append(types.length);
+        sb.append(", matched=").append(matched);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.nodes.Node;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Defers compilation until a tree proves hot. Trees start out interpreted by walking their nodes, and once
+ * one has been evaluated threshold times, it is compiled by the target compiler on the executor and
+ * switched over when ready. Set on a parser, this keeps loading many mostly cold trees cheap while the few
+ * hot ones reach the target engine's throughput.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class TieredCompiler implements EngineCompiler {
+    public static final long DEFAULT_THRESHOLD = 10000;
+
+    private final EngineCompiler target;
+    private final long threshold;
+    private final Executor executor;
+
+    public TieredCompiler(final EngineCompiler target) {
+        this(target, DEFAULT_THRESHOLD);
+    }
+
+    public TieredCompiler(final EngineCompiler target, final long threshold) {
+        this(target, threshold, ForkJoinPool.commonPool());
+    }
+
+    public TieredCompiler(final EngineCompiler target, final long threshold, final Executor executor) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+        this.target = target;
+        this.threshold = threshold;
+        this.executor = executor;
+    }
+
+    @Override
+    public Engine compile(final Node rootNode) {
+        return new TieredEngine(rootNode, target, threshold, executor);
+    }
+}
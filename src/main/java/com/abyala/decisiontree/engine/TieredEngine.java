@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interprets the tree until it has been evaluated a threshold number of times, then compiles it once in the
+ * background and delegates every later evaluation to the compiled engine. Evaluations keep using the
+ * interpreter until compilation finishes, and for good if it fails. If the executor rejects the compilation,
+ * the evaluation that crossed the threshold compiles the tree itself.
+ * <p>
+ * Evaluations are counted in a LongAdder, so concurrent evaluations do not contend on one counter, and
+ * counting stops once compilation has started. Summing the adder visits every cell, so for large thresholds
+ * only a random one in up to 64 evaluations compares the count to the threshold, which may let the count
+ * run a few dozen past it. Once promoted, an evaluation costs one volatile read on top of the compiled
+ * engine.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class TieredEngine implements Engine {
+    private static final int MAX_CHECK_INTERVAL = 64;
+
+    private final Node rootNode;
+    private final NodeEngine interpreter;
+    private final EngineCompiler compiler;
+    private final long threshold;
+    private final int checkInterval;
+    private final Executor executor;
+    private final AtomicBoolean promotionStarted = new AtomicBoolean();
+    private volatile Engine compiled;
+    private volatile Throwable promotionFailure;
+    private final LongAdder evaluationCount = new LongAdder();
+
+    public TieredEngine(final Node rootNode, final EngineCompiler compiler, final long threshold, final Executor executor) {
+        this.rootNode = rootNode;
+        this.interpreter = new NodeEngine(rootNode);
+        this.compiler = compiler;
+        this.threshold = threshold;
+        this.checkInterval = (int) Math.min(MAX_CHECK_INTERVAL, Math.max(1, threshold / MAX_CHECK_INTERVAL));
+        this.executor = executor;
+    }
+
+    @Override
+    public ResultNode resolve(final DecisionTreeFacts facts) throws InvalidFactException {
+        final Engine target = compiled;
+        if (target != null) {
+            return target.resolve(facts);
+        }
+        countEvaluation();
+        return interpreter.resolve(facts);
+    }
+
+    @Override
+    public void tryResolve(final DecisionTreeFacts facts, final Evaluation evaluation) {
+        final Engine target = compiled;
+        if (target != null) {
+            target.tryResolve(facts, evaluation);
+            return;
+        }
+        countEvaluation();
+        interpreter.tryResolve(facts, evaluation);
+    }
+
+    private void countEvaluation() {
+        if (promotionStarted.get()) {
+            return;
+        }
+
+        evaluationCount.increment();
+        if (checkInterval > 1 && ThreadLocalRandom.current().nextInt(checkInterval) != 0) {
+            return;
+        }
+        if (evaluationCount.sum() >= threshold && promotionStarted.compareAndSet(false, true)) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        compile();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                compile();
+            }
+        }
+    }
+
+    /**
+     * Compiles the tree on the calling thread now, unless compilation has already started. Returns true if
+     * the tree is compiled when this returns.
+     */
+    public boolean promote() {
+        if (promotionStarted.compareAndSet(false, true)) {
+            compile();
+        }
+        return isPromoted();
+    }
+
+    private void compile() {
+        try {
+            compiled = compiler.compile(rootNode);
+        } catch (RuntimeException e) {
+            promotionFailure = e;
+        } catch (LinkageError e) {
+            promotionFailure = e;
+        }
+    }
+
+    public boolean isPromoted() {
+        return compiled != null;
+    }
+
+    /**
+     * Returns the compiled engine, or null if the tree is still interpreted.
+     */
+    public Engine getCompiledEngine() {
+        return compiled;
+    }
+
+    /**
+     * Returns why compilation failed, or null if it has not failed.
+     */
+    public Throwable getPromotionFailure() {
+        return promotionFailure;
+    }
+
+    /**
+     * Returns the number of evaluations interpreted before compilation started.
+     */
+    public long getEvaluationCount() {
+        return evaluationCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("TieredEngine");
+        sb.append("{threshold=").append(threshold);
+        sb.append(", compiled=").append(compiled);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -20,6 +20,10 @@
 package com.abyala.decisiontree.exceptions;
 
 /**
+ * Fact exceptions carry no stack trace and cannot hold suppressed exceptions: they describe bad input rather
+ * than a fault in the code, they are cheap enough to throw on hot paths, and a single instance may be
+ * preallocated and thrown repeatedly.
+ *
  * User: abyala
  * Date: 6/28/12
  */
@@ -28,24 +32,25 @@ public class InvalidFactException extends Exception {
     private final Object fieldValue;
 
     public InvalidFactException(final String fieldName, final Object fieldValue) {
+        super(null, null, false, false);
         this.fieldName = fieldName;
         this.fieldValue = fieldValue;
     }
 
     public InvalidFactException(final String fieldName, final Object fieldValue, final String message) {
-        super(message);
+        super(message, null, false, false);
         this.fieldName = fieldName;
         this.fieldValue = fieldValue;
     }
 
     public InvalidFactException(final String fieldName, final Object fieldValue, final String message, final Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
         this.fieldName = fieldName;
         this.fieldValue = fieldValue;
     }
 
     public InvalidFactException(final String fieldName, final Object fieldValue, final Throwable cause) {
-        super(cause);
+        super(cause == null ? null : cause.toString(), cause, false, false);
         this.fieldName = fieldName;
         this.fieldValue = fieldValue;
     }
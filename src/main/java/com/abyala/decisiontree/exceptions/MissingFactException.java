@@ -25,10 +25,16 @@ package com.abyala.decisiontree.exceptions;
  */
 public class MissingFactException extends InvalidFactException {
     public MissingFactException(final String fieldName) {
-        this(fieldName, "Required fact not provided: " + fieldName);
+        this(fieldName, null);
     }
 
     public MissingFactException(final String fieldName, final String message) {
         super(fieldName, null, message);
     }
+
+    @Override
+    public String getMessage() {
+        final String message = super.getMessage();
+        return message != null ? message : "Required fact not provided: " + getFieldName();
+    }
 }
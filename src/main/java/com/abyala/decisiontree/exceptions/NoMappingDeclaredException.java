@@ -25,6 +25,11 @@ package com.abyala.decisiontree.exceptions;
  */
 public class NoMappingDeclaredException extends InvalidFactException {
     public NoMappingDeclaredException(final String fieldName, final Object fieldValue) {
-        super(fieldName, fieldValue, "No value mapped for field \"" + fieldName + "\" and value \"" + fieldValue + "\"");
+        super(fieldName, fieldValue);
+    }
+
+    @Override
+    public String getMessage() {
+        return "No value mapped for field \"" + getFieldName() + "\" and value \"" + getFieldValue() + "\"";
     }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.exceptions;
+
+/**
+ * Carries an InvalidFactException out of APIs that cannot throw checked exceptions, such as streams.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class UncheckedInvalidFactException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedInvalidFactException(final InvalidFactException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public InvalidFactException getCause() {
+        return (InvalidFactException) super.getCause();
+    }
+}
@@ -41,6 +41,10 @@ public class BooleanFact implements Fact {
         return value;
     }
 
+    public boolean getBooleanValue() {
+        return value;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -41,6 +41,10 @@ public class IntegerFact implements Fact {
         return value;
     }
 
+    public int getIntValue() {
+        return value;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a sampled evaluation of a decision tree. The event's duration covers only the
+ * evaluation itself.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+@Name("com.abyala.decisiontree.Evaluation")
+@Label("Decision Tree Evaluation")
+@Category("Decision Tree")
+@Description("A sampled evaluation of a decision tree")
+@StackTrace(false)
+public class EvaluationEvent extends Event {
+    public static final String ERROR = "ERROR";
+
+    @Label("Tree ID")
+    public long treeId;
+
+    @Label("Depth")
+    @Description("Number of nodes visited")
+    public int depth;
+
+    @Label("Outcome")
+    @Description("Evaluation status, or ERROR if the evaluation threw an unexpected exception")
+    public String outcome;
+
+    @Label("Leaf ID")
+    public int leafId;
+}
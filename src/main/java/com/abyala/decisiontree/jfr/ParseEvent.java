@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a parsed decision tree, with the time spent in each phase of parsing.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+@Name("com.abyala.decisiontree.Parse")
+@Label("Decision Tree Parse")
+@Category("Decision Tree")
+@Description("Parsing of a decision tree definition, by phase")
+@StackTrace(false)
+public class ParseEvent extends Event {
+    @Label("Tree ID")
+    public long treeId;
+
+    @Label("Leaf Count")
+    public int leafCount;
+
+    @Label("XML Load")
+    @Timespan(Timespan.NANOSECONDS)
+    public long xmlLoadDuration;
+
+    @Label("Input Types")
+    @Timespan(Timespan.NANOSECONDS)
+    public long inputTypesDuration;
+
+    @Label("Result Class")
+    @Timespan(Timespan.NANOSECONDS)
+    public long resultClassDuration;
+
+    @Label("Table")
+    @Description("Building the nodes, including resolving each node's references")
+    @Timespan(Timespan.NANOSECONDS)
+    public long tableDuration;
+
+    @Label("Validate")
+    @Timespan(Timespan.NANOSECONDS)
+    public long validateDuration;
+
+    @Label("Compile")
+    @Timespan(Timespan.NANOSECONDS)
+    public long compileDuration;
+}
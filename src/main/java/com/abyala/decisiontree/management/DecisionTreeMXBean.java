@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.management;
+
+/**
+ * Management interface of a decision tree. Evaluation statistics are only collected while metrics are
+ * enabled; otherwise they read as zero.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public interface DecisionTreeMXBean {
+    String getName();
+    String getEngineName();
+
+    int getNodeCount();
+    int getLeafCount();
+
+    /**
+     * Returns the number of nodes on the longest path from the root to a leaf.
+     */
+    int getDepth();
+
+    /**
+     * Returns a rough estimate of the heap bytes held by the tree's nodes and leaves.
+     */
+    long getEstimatedRetainedBytes();
+
+    boolean isMetricsEnabled();
+    void setMetricsEnabled(boolean enabled);
+
+    long getEvaluationCount();
+
+    /**
+     * Returns evaluations per second over a recent window rather than since statistics were reset. The rate
+     * is measured from a snapshot of the evaluation count taken between one and two minutes ago, or at the
+     * last read or reset if reads are further apart than that.
+     */
+    double getEvaluationRate();
+
+    /**
+     * Returns the number of evaluations that found no mapping, lacked a fact or had a fact of the wrong type.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the fraction of evaluations that were misses.
+     */
+    double getMissRate();
+
+    double getMeanLatencyNanos();
+    long getLatencyP50Nanos();
+    long getLatencyP90Nanos();
+    long getLatencyP99Nanos();
+    long getLatencyP999Nanos();
+
+    void resetStatistics();
+
+    /**
+     * Replaces the tree with a freshly loaded one, keeping metrics enabled if they were. Throws an
+     * IllegalStateException describing the failure if the tree cannot be loaded, leaving the current tree in
+     * place.
+     */
+    void reload();
+}
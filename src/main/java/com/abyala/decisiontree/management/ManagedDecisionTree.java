@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.management;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
+import com.abyala.decisiontree.metrics.InstrumentedEngine;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes a decision tree through JMX. Applications evaluate the tree returned by {@link #getTree()},
+ * which changes when the tree is reloaded. Nothing is added to evaluations unless metrics are enabled,
+ * and attributes are computed only when read.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ManagedDecisionTree implements DecisionTreeMXBean {
+    public static final String DOMAIN = "com.abyala.decisiontree";
+    static final long RATE_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final String name;
+    private final Callable<DecisionTree> loader;
+    private volatile DecisionTree tree;
+    private volatile TreeShape shape;
+
+    /**
+     * Snapshots of the evaluation count for the windowed rate. The latest one moves up to previous once it is
+     * a window old, and the rate is measured from previous.
+     */
+    private long previousSampleNanos;
+    private long previousSampleCount;
+    private long latestSampleNanos;
+    private long latestSampleCount;
+    private ObjectName registeredName;
+    private MBeanServer registeredServer;
+
+    /**
+     * Manages a tree that cannot be reloaded.
+     */
+    public ManagedDecisionTree(final String name, final DecisionTree tree) {
+        this(name, tree, null);
+    }
+
+    /**
+     * Manages a tree, using the loader to build its replacement on reload.
+     */
+    public ManagedDecisionTree(final String name, final DecisionTree tree, final Callable<DecisionTree> loader) {
+        this.name = name;
+        this.loader = loader;
+        setTree(tree);
+        resetRate(System.nanoTime());
+    }
+
+    private void setTree(final DecisionTree tree) {
+        this.shape = new TreeShape(tree);
+        this.tree = tree;
+    }
+
+    public DecisionTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Registers this tree with the platform MBean server.
+     */
+    public ObjectName register() throws JMException {
+        return register(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public synchronized ObjectName register(final MBeanServer server) throws JMException {
+        if (registeredName != null) {
+            throw new IllegalStateException("Already registered as " + registeredName);
+        }
+        final ObjectName objectName = new ObjectName(DOMAIN + ":type=DecisionTree,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+        registeredName = objectName;
+        registeredServer = server;
+        return objectName;
+    }
+
+    public synchronized void unregister() throws JMException {
+        if (registeredName != null) {
+            registeredServer.unregisterMBean(registeredName);
+            registeredName = null;
+            registeredServer = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getEngineName() {
+        Object engine = tree.getEngine();
+        if (engine instanceof InstrumentedEngine) {
+            engine = ((InstrumentedEngine) engine).getDelegate();
+        }
+        return engine.getClass().getName();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return shape.getNodeCount();
+    }
+
+    @Override
+    public int getLeafCount() {
+        return shape.getLeafCount();
+    }
+
+    @Override
+    public int getDepth() {
+        return shape.getDepth();
+    }
+
+    @Override
+    public long getEstimatedRetainedBytes() {
+        return shape.getEstimatedSize();
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return tree.getMetrics() != null;
+    }
+
+    @Override
+    public synchronized void setMetricsEnabled(final boolean enabled) {
+        if (enabled && !isMetricsEnabled()) {
+            tree.enableMetrics();
+            resetRate(System.nanoTime());
+        } else if (!enabled) {
+            tree.disableMetrics();
+        }
+    }
+
+    @Override
+    public long getEvaluationCount() {
+        final DecisionTreeMetrics metrics = tree.getMetrics();
+        return metrics == null ? 0 : metrics.getEvaluationCount();
+    }
+
+    @Override
+    public double getEvaluationRate() {
+        return getEvaluationRate(System.nanoTime());
+    }
+
+    synchronized double getEvaluationRate(final long now) {
+        final long count = getEvaluationCount();
+        if (now - latestSampleNanos >= RATE_WINDOW_NANOS) {
+            previousSampleNanos = latestSampleNanos;
+            previousSampleCount = latestSampleCount;
+            latestSampleNanos = now;
+            latestSampleCount = count;
+        }
+        final long nanos = now - previousSampleNanos;
+        return nanos <= 0 ? 0.0 : (count - previousSampleCount) * 1e9 / nanos;
+    }
+
+    synchronized void resetRate(final long now) {
+        previousSampleNanos = now;
+        previousSampleCount = 0;
+        latestSampleNanos = now;
+        latestSampleCount = 0;
+    }
+
+    @Override
+    public long getMissCount() {
+        final DecisionTreeMetrics metrics = tree.getMetrics();
+        return metrics == null ? 0 : metrics.getNoMappingCount() + metrics.getMissingFactCount() + metrics.getInvalidFactCount();
+    }
+
+    @Override
+    public double getMissRate() {
+        final long evaluations = getEvaluationCount();
+        return evaluations == 0 ? 0.0 : (double) getMissCount() / evaluations;
+    }
+
+    @Override
+    public double getMeanLatencyNanos() {
+        final DecisionTreeMetrics metrics = tree.getMetrics();
+        return metrics == null ? 0.0 : metrics.getLatencies().getMean();
+    }
+
+    @Override
+    public long getLatencyP50Nanos() {
+        return latencyAt(50);
+    }
+
+    @Override
+    public long getLatencyP90Nanos() {
+        return latencyAt(90);
+    }
+
+    @Override
+    public long getLatencyP99Nanos() {
+        return latencyAt(99);
+    }
+
+    @Override
+    public long getLatencyP999Nanos() {
+        return latencyAt(99.9);
+    }
+
+    private long latencyAt(final double percentile) {
+        final DecisionTreeMetrics metrics = tree.getMetrics();
+        return metrics == null ? 0 : metrics.getLatencies().getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public synchronized void resetStatistics() {
+        final DecisionTreeMetrics metrics = tree.getMetrics();
+        if (metrics != null) {
+            metrics.reset();
+        }
+        resetRate(System.nanoTime());
+    }
+
+    /**
+     * Loads the replacement tree before swapping it in, so evaluations keep using the current tree until
+     * the new one is ready, and the current tree stays in place if loading fails. The failure is described in
+     * the message rather than attached as the cause, since a JMX client may not have the cause's class.
+     */
+    @Override
+    public synchronized void reload() {
+        if (loader == null) {
+            throw new UnsupportedOperationException("No loader configured for decision tree " + name);
+        }
+        final DecisionTree loaded;
+        try {
+            loaded = loader.call();
+        } catch (Exception e) {
+            throw new IllegalStateException("Reloading decision tree " + name + " failed: " + e);
+        }
+        if (isMetricsEnabled()) {
+            loaded.enableMetrics();
+        }
+        setTree(loaded);
+        resetRate(System.nanoTime());
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("ManagedDecisionTree");
+        sb.append("{name='").append(name).append('\'');
+        sb.append(", registeredName=").append(registeredName);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.management;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.nodes.AbstractNode;
+import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The structure of a tree, measured once since trees are immutable. Nodes and leaves shared through
+ * references are counted once.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+class TreeShape {
+    private final Map<Object, Integer> depths = new IdentityHashMap<Object, Integer>();
+    private final int depth;
+    private int nodeCount;
+    private int leafCount;
+    private long estimatedSize;
+
+    TreeShape(final DecisionTree tree) {
+        depth = visit(tree.getRootNode());
+    }
+
+    /**
+     * Returns the number of edges on the longest path below the child, visiting each shared child once.
+     */
+    private int visit(final Object child) {
+        final Integer known = depths.get(child);
+        if (known != null) {
+            return known;
+        }
+
+        int depth = 0;
+        if (child instanceof ResultNode) {
+            leafCount++;
+            estimatedSize += ((ResultNode) child).getEstimatedSize();
+        } else if (child instanceof AbstractNode) {
+            final AbstractNode node = (AbstractNode) child;
+            nodeCount++;
+            estimatedSize += node.getEstimatedSize();
+            for (int branch = 0; branch < node.getBranchCount(); branch++) {
+                final Object grandchild = node.getChild(branch);
+                if (grandchild != null) {
+                    depth = Math.max(depth, 1 + visit(grandchild));
+                }
+            }
+        } else if (child instanceof Node) {
+            nodeCount++;
+        }
+        depths.put(child, depth);
+        return depth;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Returns the number of nodes on the longest path from the root to a leaf.
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    long getEstimatedSize() {
+        return estimatedSize;
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.metrics;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.nodes.AbstractNode;
+import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.NodeVisitor;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often each branch of each node is taken, how often each leaf is returned, how often
+ * evaluations fail, and how long they take. All counters are LongAdders, so threads evaluating the same
+ * tree do not contend for a shared cache line. Counters for a node are created on its first visit, so a
+ * node that is never visited has none.
+ * <p>
+ * Leaves, failures and latencies are counted for every evaluation. Branches and the nodes at which
+ * evaluations fail are counted by walking the tree's nodes again, which only a random one in every
+ * branchSampleInterval evaluations does; with an interval above 1 the node counters are a sample, good
+ * for relative frequencies but not for totals.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class DecisionTreeMetrics {
+    /**
+     * Counts the branches of every evaluation, so that rarely taken branches are seen.
+     */
+    public static final int DEFAULT_BRANCH_SAMPLE_INTERVAL = 1;
+
+    private final int branchSampleInterval;
+    private final ConcurrentMap<Node, NodeCounters> nodeCounters = new ConcurrentHashMap<Node, NodeCounters>();
+    private final LongAdder[] leafCounts;
+    private final ConcurrentMap<ResultNode, LongAdder> unnumberedLeafCounts = new ConcurrentHashMap<ResultNode, LongAdder>();
+    private final LongAdder evaluationCount = new LongAdder();
+    private final LongAdder noMappingCount = new LongAdder();
+    private final LongAdder missingFactCount = new LongAdder();
+    private final LongAdder invalidFactCount = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final NodeVisitor branchCounter = new NodeVisitor() {
+        @Override
+        public void visitBranch(final AbstractNode node, final DecisionTreeFacts facts, final int branch) {
+            countersFor(node).branchCounts[branch].increment();
+        }
+
+        @Override
+        public void visitLeaf(final ResultNode leaf) {
+        }
+
+        @Override
+        public void visitFailure(final AbstractNode node, final DecisionTreeFacts facts, final Evaluation.Status status, final InvalidFactException error) {
+            final NodeCounters counters = countersFor(node);
+            if (status == Evaluation.Status.NO_MAPPING) {
+                counters.noMappingCount.increment();
+            } else if (status == Evaluation.Status.MISSING_FACT) {
+                counters.missingFactCount.increment();
+            } else {
+                counters.invalidFactCount.increment();
+            }
+        }
+    };
+
+    /**
+     * Creates metrics for a tree with the given number of numbered leaves.
+     */
+    public DecisionTreeMetrics(final int leafCount) {
+        this(leafCount, DEFAULT_BRANCH_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Creates metrics that count the branches of a random one in every branchSampleInterval evaluations,
+     * or of none if it is 0.
+     */
+    public DecisionTreeMetrics(final int leafCount, final int branchSampleInterval) {
+        if (branchSampleInterval < 0) {
+            throw new IllegalArgumentException("Branch sample interval must not be negative: " + branchSampleInterval);
+        }
+        this.branchSampleInterval = branchSampleInterval;
+        leafCounts = new LongAdder[leafCount];
+        for (int i = 0; i < leafCount; i++) {
+            leafCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns whether the branches of the current evaluation should be counted.
+     */
+    boolean shouldCountBranches() {
+        final int interval = branchSampleInterval;
+        return interval == 1 || (interval > 1 && ThreadLocalRandom.current().nextInt(interval) == 0);
+    }
+
+    public int getBranchSampleInterval() {
+        return branchSampleInterval;
+    }
+
+    /**
+     * Counts a failed evaluation by the type of its exception.
+     */
+    public void recordFailure(final InvalidFactException failure) {
+        if (failure instanceof NoMappingDeclaredException) {
+            recordFailure(Evaluation.Status.NO_MAPPING);
+        } else if (failure instanceof MissingFactException) {
+            recordFailure(Evaluation.Status.MISSING_FACT);
+        } else {
+            recordFailure(Evaluation.Status.INVALID_FACT);
+        }
+    }
+
+    /**
+     * Counts a failed evaluation by its status, which must not be MATCHED.
+     */
+    public void recordFailure(final Evaluation.Status status) {
+        if (status == Evaluation.Status.NO_MAPPING) {
+            noMappingCount.increment();
+        } else if (status == Evaluation.Status.MISSING_FACT) {
+            missingFactCount.increment();
+        } else {
+            invalidFactCount.increment();
+        }
+    }
+
+    /**
+     * Returns the visitor that counts the branches taken and the node at which a walk failed. It ignores
+     * the leaf, which is counted from the engine's result.
+     */
+    NodeVisitor getBranchCounter() {
+        return branchCounter;
+    }
+
+    public void recordLeaf(final ResultNode leaf) {
+        final int id = leaf.getId();
+        if (id >= 0 && id < leafCounts.length) {
+            leafCounts[id].increment();
+        } else {
+            LongAdder count = unnumberedLeafCounts.get(leaf);
+            if (count == null) {
+                final LongAdder created = new LongAdder();
+                count = unnumberedLeafCounts.putIfAbsent(leaf, created);
+                if (count == null) {
+                    count = created;
+                }
+            }
+            count.increment();
+        }
+    }
+
+    /**
+     * Records one evaluation, successful or not, and its duration.
+     */
+    public void recordEvaluation(final long nanos) {
+        evaluationCount.increment();
+        latencies.record(nanos);
+    }
+
+    private NodeCounters countersFor(final AbstractNode node) {
+        NodeCounters counters = nodeCounters.get(node);
+        if (counters == null) {
+            final NodeCounters created = new NodeCounters(node);
+            counters = nodeCounters.putIfAbsent(node, created);
+            if (counters == null) {
+                counters = created;
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Returns the counters of the node, or null if it has not been visited.
+     */
+    public NodeCounters getNodeCounters(final Node node) {
+        return nodeCounters.get(node);
+    }
+
+    /**
+     * Returns the counters of every visited node, keyed by node identity.
+     */
+    public Map<Node, NodeCounters> getNodeCounters() {
+        return Collections.unmodifiableMap(new IdentityHashMap<Node, NodeCounters>(nodeCounters));
+    }
+
+    public long getLeafCount(final ResultNode leaf) {
+        final int id = leaf.getId();
+        if (id >= 0 && id < leafCounts.length) {
+            return leafCounts[id].sum();
+        }
+        final LongAdder count = unnumberedLeafCounts.get(leaf);
+        return count == null ? 0 : count.sum();
+    }
+
+    public long getEvaluationCount() {
+        return evaluationCount.sum();
+    }
+
+    public long getNoMappingCount() {
+        return noMappingCount.sum();
+    }
+
+    public long getMissingFactCount() {
+        return missingFactCount.sum();
+    }
+
+    public long getInvalidFactCount() {
+        return invalidFactCount.sum();
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Zeroes every counter. Evaluations running at the same time may be partly counted.
+     */
+    public void reset() {
+        nodeCounters.clear();
+        for (LongAdder count : leafCounts) {
+            count.reset();
+        }
+        unnumberedLeafCounts.clear();
+        evaluationCount.reset();
+        noMappingCount.reset();
+        missingFactCount.reset();
+        invalidFactCount.reset();
+        latencies.reset();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("DecisionTreeMetrics");
+        sb.append("{evaluationCount=").append(getEvaluationCount());
+        sb.append(", noMappingCount=").append(getNoMappingCount());
+        sb.append(", missingFactCount=").append(getMissingFactCount());
+        sb.append(", invalidFactCount=").append(getInvalidFactCount());
+        sb.append(", latencies=").append(latencies);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * The counters of one node, with one per branch numbered as the node numbers them. Branches can also
+     * be looked up by the mapped value that matched: the string value, boolean or integer threshold.
+     */
+    public static class NodeCounters {
+        private final AbstractNode node;
+        private final LongAdder[] branchCounts;
+        private final LongAdder noMappingCount = new LongAdder();
+        private final LongAdder missingFactCount = new LongAdder();
+        private final LongAdder invalidFactCount = new LongAdder();
+
+        private NodeCounters(final AbstractNode node) {
+            this.node = node;
+            branchCounts = new LongAdder[node.getBranchCount()];
+            for (int i = 0; i < branchCounts.length; i++) {
+                branchCounts[i] = new LongAdder();
+            }
+        }
+
+        public long getBranchCountAt(final int branch) {
+            return branchCounts[branch].sum();
+        }
+
+        public long getBranchCount(final Object branchKey) {
+            for (int branch = 0; branch < branchCounts.length; branch++) {
+                if (node.getBranchKey(branch).equals(branchKey)) {
+                    return branchCounts[branch].sum();
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the number of times each branch taken at least once was taken, keyed by its mapped value.
+         */
+        public Map<Object, Long> getBranchCounts() {
+            final Map<Object, Long> result = new HashMap<Object, Long>();
+            for (int branch = 0; branch < branchCounts.length; branch++) {
+                final long count = branchCounts[branch].sum();
+                if (count > 0) {
+                    result.put(node.getBranchKey(branch), count);
+                }
+            }
+            return result;
+        }
+
+        public long getNoMappingCount() {
+            return noMappingCount.sum();
+        }
+
+        public long getMissingFactCount() {
+            return missingFactCount.sum();
+        }
+
+        public long getInvalidFactCount() {
+            return invalidFactCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("NodeCounters");
+            sb.append("{branchCounts=").append(getBranchCounts());
+            sb.append(", noMappingCount=").append(getNoMappingCount());
+            sb.append(", missingFactCount=").append(getMissingFactCount());
+            sb.append(", invalidFactCount=").append(getInvalidFactCount());
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.metrics;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.engine.Engine;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+/**
+ * An engine that evaluates through the engine it wraps, recording the leaf it returns or the way it failed
+ * in the metrics along with the time it took. The branches taken are then counted by walking the tree's
+ * nodes for the sampled evaluations (see {@link DecisionTreeMetrics}), after the evaluation is timed, so the
+ * latencies are those of the wrapped engine. It keeps the engine it wraps so that the instrumentation can
+ * be removed again.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class InstrumentedEngine implements Engine {
+    private final Node rootNode;
+    private final Engine delegate;
+    private final DecisionTreeMetrics metrics;
+
+    public InstrumentedEngine(final Node rootNode, final Engine delegate, final DecisionTreeMetrics metrics) {
+        this.rootNode = rootNode;
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ResultNode resolve(final DecisionTreeFacts facts) throws InvalidFactException {
+        final long start = System.nanoTime();
+        final ResultNode leaf;
+        try {
+            leaf = delegate.resolve(facts);
+        } catch (InvalidFactException e) {
+            metrics.recordEvaluation(System.nanoTime() - start);
+            metrics.recordFailure(e);
+            countBranches(facts);
+            throw e;
+        }
+        metrics.recordEvaluation(System.nanoTime() - start);
+        metrics.recordLeaf(leaf);
+        countBranches(facts);
+        return leaf;
+    }
+
+    @Override
+    public void tryResolve(final DecisionTreeFacts facts, final Evaluation evaluation) {
+        final long start = System.nanoTime();
+        delegate.tryResolve(facts, evaluation);
+        metrics.recordEvaluation(System.nanoTime() - start);
+        if (evaluation.isMatched()) {
+            metrics.recordLeaf(evaluation.getLeaf());
+        } else {
+            metrics.recordFailure(evaluation.getStatus());
+        }
+        countBranches(facts);
+    }
+
+    private void countBranches(final DecisionTreeFacts facts) {
+        if (metrics.shouldCountBranches()) {
+            rootNode.walk(facts, metrics.getBranchCounter());
+        }
+    }
+
+    /**
+     * Returns the engine used when the tree is not instrumented.
+     */
+    public Engine getDelegate() {
+        return delegate;
+    }
+
+    public DecisionTreeMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("InstrumentedEngine");
+        sb.append("{delegate=").append(delegate);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds. Durations below 16 have a bucket each; above that, every power
+ * of two is split into eight equal sub-buckets, so a bucket's upper bound overestimates any duration in it
+ * by less than 12.5%. Every bucket is a LongAdder, so threads recording at once update separate cells
+ * rather than contending for one.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for every non-negative long, whose highest set bit is at most bit 62.
+     */
+    public static final int BUCKET_COUNT = (62 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        buckets[bucketOf(value)].increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Values below SUB_BUCKETS index their own bucket. Larger values index by their highest set bit and
+     * the SUB_BUCKET_BITS bits below it, which continues the same numbering: 8 to 15 land in buckets 8 to
+     * 15, 16 and 17 in bucket 16, and so on.
+     */
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = highestBit - SUB_BUCKET_BITS;
+        return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    public long getBucketCount(final int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    /**
+     * Returns the largest duration counted by the bucket.
+     */
+    public static long getBucketUpperBound(final int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getMean() {
+        final long count = getCount();
+        return count == 0 ? 0.0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile (0 to 100) of recorded
+     * durations, which overestimates it by less than 12.5%, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return getBucketUpperBound(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("LatencyHistogram");
+        sb.append("{count=").append(getCount());
+        sb.append(", mean=").append(getMean());
+        sb.append(", p50=").append(getValueAtPercentile(50));
+        sb.append(", p99=").append(getValueAtPercentile(99));
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -20,12 +20,25 @@
 package com.abyala.decisiontree.nodes;
 
 import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.FactBatch;
+import com.abyala.decisiontree.IndexedDecisionTreeFacts;
 import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
 import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
 import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
 import com.abyala.decisiontree.types.InputType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * User: abyala
@@ -33,9 +46,24 @@ import java.util.Collection;
  */
 public abstract class AbstractNode implements Node {
     private final InputType type;
+    private final int slot;
+    private final MissingFactException missingFact;
+
+    /**
+     * At most this many branches of a node are checked ahead of its general lookup.
+     */
+    static final int MAX_HOT_BRANCHES = 4;
+
+    /**
+     * A branch is checked ahead of the general lookup only if it takes at least this share of the node's
+     * profiled visits.
+     */
+    static final double HOT_BRANCH_SHARE = 0.05;
 
     protected AbstractNode(final InputType type) {
         this.type = type;
+        this.slot = type.getSlot();
+        this.missingFact = new MissingFactException(type.getName());
     }
 
     @Override
@@ -49,19 +77,211 @@ public abstract class AbstractNode implements Node {
 
     @Override
     public Object evaluate(final DecisionTreeFacts facts) throws InvalidFactException {
+        return resolve(facts).createResult();
+    }
+
+    @Override
+    public ResultNode resolve(final DecisionTreeFacts facts) throws InvalidFactException {
         final Object result = doEvaluate(facts);
 
         if (result == null) {
             throw new NoMappingDeclaredException(getName(), facts.get(getName()));
         } else if (result instanceof ResultNode) {
-            return ((ResultNode) result).createResult();
+            return (ResultNode) result;
         } else if (result instanceof Node) {
-            return ((Node) result).evaluate(facts);
+            return ((Node) result).resolve(facts);
         } else {
             throw new IllegalStateException("Unexpected element value found in node " + getName() + " with facts " + facts + " - " + result);
         }
     }
 
+    /**
+     * Selects the child of every row in one pass over this node's column, settles the rows that reached a
+     * leaf, and hands each child node its rows as one contiguous range. Rows keep their relative order, so
+     * every node reads its column in ascending row order.
+     */
+    @Override
+    public void resolveBatch(final FactBatch batch, final int[] rows, final int from, final int to, final ResultNode[] results) throws InvalidFactException {
+        final Object[] selected = new Object[to - from];
+        selectChildren(batch, rows, from, to, selected);
+
+        final Map<Node, Integer> groupIndexes = new IdentityHashMap<Node, Integer>();
+        final int[] groups = new int[selected.length];
+        int[] counts = new int[4];
+        Node lastNode = null;
+        int lastGroup = -1;
+        for (int i = 0; i < selected.length; i++) {
+            final Object child = selected[i];
+            if (child instanceof ResultNode) {
+                results[rows[from + i]] = (ResultNode) child;
+                groups[i] = -1;
+            } else if (child instanceof Node) {
+                if (child != lastNode) {
+                    lastNode = (Node) child;
+                    Integer group = groupIndexes.get(lastNode);
+                    if (group == null) {
+                        group = groupIndexes.size();
+                        groupIndexes.put(lastNode, group);
+                        if (group == counts.length) {
+                            final int[] grown = new int[counts.length * 2];
+                            System.arraycopy(counts, 0, grown, 0, counts.length);
+                            counts = grown;
+                        }
+                    }
+                    lastGroup = group;
+                }
+                groups[i] = lastGroup;
+                counts[lastGroup]++;
+            } else if (child == null) {
+                throw new NoMappingDeclaredException(getName(), batch.get(getName(), rows[from + i]));
+            } else {
+                throw new IllegalStateException("Unexpected element value found in node " + getName() + " with batch " + batch + " - " + child);
+            }
+        }
+
+        if (groupIndexes.isEmpty()) {
+            return;
+        }
+
+        // Stable counting sort of the remaining rows by child, into the front of the range
+        final int[] starts = new int[groupIndexes.size() + 1];
+        for (int group = 0; group < groupIndexes.size(); group++) {
+            starts[group + 1] = starts[group] + counts[group];
+        }
+        final int[] next = starts.clone();
+        final int[] sorted = new int[starts[groupIndexes.size()]];
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] >= 0) {
+                sorted[next[groups[i]]++] = rows[from + i];
+            }
+        }
+        System.arraycopy(sorted, 0, rows, from, sorted.length);
+
+        for (Map.Entry<Node, Integer> entry : groupIndexes.entrySet()) {
+            final int group = entry.getValue();
+            entry.getKey().resolveBatch(batch, rows, from + starts[group], from + starts[group + 1], results);
+        }
+    }
+
+    /**
+     * The one walk behind tryResolve, tracing, branch counting and caching. It selects each branch once,
+     * by index, and reports it to the visitor instead of each caller keeping its own loop; resolve keeps
+     * the direct loop above since it is the interpreter's hot path.
+     */
+    @Override
+    public ResultNode walk(final DecisionTreeFacts facts, final NodeVisitor visitor) {
+        AbstractNode node = this;
+        while (true) {
+            if (!node.hasFact(facts)) {
+                visitor.visitFailure(node, facts, Evaluation.Status.MISSING_FACT, null);
+                return null;
+            }
+
+            final int branch;
+            try {
+                branch = node.selectBranch(facts);
+            } catch (MissingFactException e) {
+                visitor.visitFailure(node, facts, Evaluation.Status.MISSING_FACT, null);
+                return null;
+            } catch (InvalidFactException e) {
+                visitor.visitFailure(node, facts, Evaluation.Status.INVALID_FACT, e);
+                return null;
+            }
+            if (branch < 0) {
+                visitor.visitFailure(node, facts, Evaluation.Status.NO_MAPPING, null);
+                return null;
+            }
+
+            visitor.visitBranch(node, facts, branch);
+            final Object child = node.getChild(branch);
+            if (child instanceof AbstractNode) {
+                node = (AbstractNode) child;
+            } else if (child instanceof ResultNode) {
+                visitor.visitLeaf((ResultNode) child);
+                return (ResultNode) child;
+            } else if (child instanceof Node) {
+                return ((Node) child).walk(facts, visitor);
+            } else {
+                throw new IllegalStateException("Unexpected element value found in node " + node.getName() + " with facts " + facts + " - " + child);
+            }
+        }
+    }
+
+    /**
+     * Returns a rough estimate of the heap bytes held by this node alone, excluding its children. The base
+     * implementation counts the node's own fields and its preallocated exception.
+     */
+    public long getEstimatedSize() {
+        return SizeEstimates.object(2 * SizeEstimates.REFERENCE + 4) + SizeEstimates.object(6 * SizeEstimates.REFERENCE);
+    }
+
+    /**
+     * Returns a copy of this node and the nodes below it that checks the branches most often taken in the
+     * profile first. Nodes already copied are looked up in, and added to, the optimized map, so shared
+     * nodes stay shared; leaves are not copied.
+     */
+    public Node optimize(final DecisionTreeMetrics profile, final Map<Node, Node> optimized) {
+        Node result = optimized.get(this);
+        if (result == null) {
+            final DecisionTreeMetrics.NodeCounters counters = profile.getNodeCounters(this);
+            result = rebuild(profile, optimized, hotBranches(counters));
+            optimized.put(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the keys of the branches taken at least HOT_BRANCH_SHARE of the time, most frequent first.
+     */
+    private List<Object> hotBranches(final DecisionTreeMetrics.NodeCounters counters) {
+        if (counters == null) {
+            return Collections.emptyList();
+        }
+
+        final long[] counts = new long[getBranchCount()];
+        final Integer[] branches = new Integer[counts.length];
+        long total = 0;
+        for (int branch = 0; branch < counts.length; branch++) {
+            counts[branch] = counters.getBranchCountAt(branch);
+            branches[branch] = branch;
+            total += counts[branch];
+        }
+        Arrays.sort(branches, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                return Long.compare(counts[o2], counts[o1]);
+            }
+        });
+
+        final List<Object> result = new ArrayList<Object>(MAX_HOT_BRANCHES);
+        for (Integer branch : branches) {
+            if (result.size() == MAX_HOT_BRANCHES || counts[branch] == 0 || counts[branch] < total * HOT_BRANCH_SHARE) {
+                break;
+            }
+            result.add(getBranchKey(branch));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the optimized copy of a child node, or the child itself if it is a leaf.
+     */
+    protected static Object optimizeChild(final Object child, final DecisionTreeMetrics profile, final Map<Node, Node> optimized) {
+        return child instanceof AbstractNode ? ((AbstractNode) child).optimize(profile, optimized) : child;
+    }
+
+    private boolean hasFact(final DecisionTreeFacts facts) {
+        final IndexedDecisionTreeFacts indexed = indexed(facts);
+        return indexed != null ? indexed.isSet(slot) : facts.hasFact(getName());
+    }
+
+    /**
+     * Returns the preallocated exception for this node's fact being absent.
+     */
+    protected MissingFactException missingFact() {
+        return missingFact;
+    }
+
     @Override
     public void validate() throws DecisionTreeParserException {
         validateShallow();
@@ -70,7 +290,116 @@ public abstract class AbstractNode implements Node {
         }
     }
 
+    /**
+     * Reads this node's input as a string, throwing a MissingFactException if it is absent. Facts created
+     * from the schema that holds this node's input are read by slot, and any others by name.
+     */
+    protected String readString(final DecisionTreeFacts facts) throws InvalidFactException {
+        final IndexedDecisionTreeFacts indexed = indexed(facts);
+        if (indexed != null) {
+            return indexed.getString(slot);
+        }
+
+        final String value = facts.getString(getName());
+        if (value == null) {
+            throw missingFact;
+        }
+        return value;
+    }
+
+    protected int readInt(final DecisionTreeFacts facts) throws InvalidFactException {
+        final IndexedDecisionTreeFacts indexed = indexed(facts);
+        if (indexed != null) {
+            return indexed.getInt(slot);
+        }
+
+        return facts.getIntValue(getName(), missingFact);
+    }
+
+    protected boolean readBoolean(final DecisionTreeFacts facts) throws InvalidFactException {
+        final IndexedDecisionTreeFacts indexed = indexed(facts);
+        if (indexed != null) {
+            return indexed.getBoolean(slot);
+        }
+
+        return facts.getBooleanValue(getName(), missingFact);
+    }
+
+    protected int[] intColumn(final FactBatch batch) throws MissingFactException {
+        final int[] column = batch.getInts(batchSlot(batch));
+        if (column == null) {
+            throw missingFact;
+        }
+        return column;
+    }
+
+    protected String[] stringColumn(final FactBatch batch) throws MissingFactException {
+        final String[] column = batch.getStrings(batchSlot(batch));
+        if (column == null) {
+            throw missingFact;
+        }
+        return column;
+    }
+
+    protected BitSet booleanColumn(final FactBatch batch) throws MissingFactException {
+        final BitSet column = batch.getBooleans(batchSlot(batch));
+        if (column == null) {
+            throw missingFact;
+        }
+        return column;
+    }
+
+    private int batchSlot(final FactBatch batch) {
+        if (!batch.getSchema().contains(slot, type)) {
+            throw new IllegalArgumentException("Batch schema " + batch.getSchema() + " does not hold input \"" + getName() + "\"");
+        }
+        return slot;
+    }
+
+    private IndexedDecisionTreeFacts indexed(final DecisionTreeFacts facts) {
+        if (slot >= 0 && facts instanceof IndexedDecisionTreeFacts) {
+            final IndexedDecisionTreeFacts indexed = (IndexedDecisionTreeFacts) facts;
+            if (indexed.getSchema().contains(slot, type)) {
+                return indexed;
+            }
+        }
+        return null;
+    }
+
     protected abstract Object doEvaluate(final DecisionTreeFacts facts) throws InvalidFactException;
+
+    /**
+     * Returns the branch the facts select, from 0 to getBranchCount() - 1, or -1 if this node has no
+     * mapping for them.
+     */
+    protected abstract int selectBranch(final DecisionTreeFacts facts) throws InvalidFactException;
+
+    /**
+     * Returns the number of branches, one per mapped value.
+     */
+    public abstract int getBranchCount();
+
+    /**
+     * Returns the mapped value of the branch: a string value, a boolean or the threshold of an integer
+     * range.
+     */
+    public abstract Object getBranchKey(final int branch);
+
+    /**
+     * Returns the child (a {@link Node} or {@link ResultNode}) of the branch.
+     */
+    public abstract Object getChild(final int branch);
+
+    /**
+     * Stores the child of each row in rows[from, to) at selected[i - from], as doEvaluate would for the
+     * row's facts.
+     */
+    protected abstract void selectChildren(final FactBatch batch, final int[] rows, final int from, final int to, final Object[] selected) throws InvalidFactException;
+    /**
+     * Creates a copy of this node over optimized children, checking the hot branches, keyed like
+     * getBranchKey, before any other.
+     */
+    protected abstract Node rebuild(final DecisionTreeMetrics profile, final Map<Node, Node> optimized, final List<Object> hotBranches);
     protected abstract void validateShallow() throws DecisionTreeParserException;
     protected abstract Collection<Node> getChildNodes();
 
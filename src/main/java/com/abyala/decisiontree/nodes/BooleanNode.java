@@ -20,13 +20,17 @@
 package com.abyala.decisiontree.nodes;
 
 import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.FactBatch;
 import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
 import com.abyala.decisiontree.exceptions.InvalidFactException;
-import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
 import com.abyala.decisiontree.types.InputType;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * User: abyala
@@ -42,14 +46,56 @@ public class BooleanNode extends AbstractNode {
         this.falseValue = falseValue;
     }
 
+    public Object getTrueValue() {
+        return trueValue;
+    }
+
+    public Object getFalseValue() {
+        return falseValue;
+    }
+
     @Override
     public Object doEvaluate(final DecisionTreeFacts facts) throws InvalidFactException {
-        final Boolean key = facts.getBoolean(getName());
-        if (key == null) {
-            throw new MissingFactException(getName());
-        }
+        return readBoolean(facts) ? trueValue : falseValue;
+    }
+
+    /**
+     * A boolean node has no lookup to reorder, so only its children are optimized.
+     */
+    @Override
+    protected Node rebuild(final DecisionTreeMetrics profile, final Map<Node, Node> optimized, final List<Object> hotBranches) {
+        return new BooleanNode(getType(), optimizeChild(trueValue, profile, optimized), optimizeChild(falseValue, profile, optimized));
+    }
+
+    /**
+     * Branch 0 is false and branch 1 is true.
+     */
+    @Override
+    protected int selectBranch(final DecisionTreeFacts facts) throws InvalidFactException {
+        return readBoolean(facts) ? 1 : 0;
+    }
 
-        return (key ? trueValue : falseValue);
+    @Override
+    public int getBranchCount() {
+        return 2;
+    }
+
+    @Override
+    public Object getBranchKey(final int branch) {
+        return branch == 1;
+    }
+
+    @Override
+    public Object getChild(final int branch) {
+        return branch == 1 ? trueValue : falseValue;
+    }
+
+    @Override
+    protected void selectChildren(final FactBatch batch, final int[] rows, final int from, final int to, final Object[] selected) throws InvalidFactException {
+        final BitSet column = booleanColumn(batch);
+        for (int i = from; i < to; i++) {
+            selected[i - from] = column.get(rows[i]) ? trueValue : falseValue;
+        }
     }
 
     @Override
@@ -20,67 +20,324 @@
 package com.abyala.decisiontree.nodes;
 
 import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.FactBatch;
 import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
 import com.abyala.decisiontree.exceptions.InvalidFactException;
-import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
 import com.abyala.decisiontree.types.InputType;
 import com.abyala.decisiontree.types.IntegerInputType;
 
 import java.util.*;
 
-import static java.util.AbstractMap.SimpleEntry;
-
 /**
  * User: abyala
  * Date: 6/18/12
  */
 public class IntegerNode extends AbstractNode {
-    private final List<Map.Entry<Integer, Object>> children;
+    /**
+     * Nodes with up to this many thresholds scan all of them without branching; larger nodes use a binary
+     * search over an Eytzinger (breadth-first) layout of the thresholds. See IntegerNodeBenchmark.
+     */
+    static final int LINEAR_SEARCH_LIMIT = 16;
+
+    /**
+     * Batches over nodes with up to this many thresholds compare whole blocks of keys against each threshold
+     * in turn (see batchIndexOf); larger nodes search each row on its own. See IntegerNodeBenchmark.
+     */
+    static final int BATCH_SCAN_LIMIT = 64;
+
+    /**
+     * Keys compared per block by batchIndexOf, small enough for the keys and indexes to stay in L1.
+     */
+    private static final int BATCH_BLOCK = 1024;
 
-    private IntegerNode(final InputType type, final Map<Integer, Object> children) {
+    /**
+     * Default for the largest input domain (max - min + 1) that gets a dense table of children.
+     */
+    public static final int DEFAULT_DENSE_TABLE_LIMIT = 1024;
+
+    private final int[] thresholds;
+    private final Object[] children;
+    private final int[] layout;
+    private final int[] layoutIndexes;
+    private final int tableOffset;
+    private final Object[] table;
+    private final int[] hotLows;
+    private final int[] hotHighs;
+    private final Object[] hotChildren;
+
+    private IntegerNode(final InputType type, final Map<Integer, Object> children, final int denseTableLimit) {
+        this(type, children, denseTableLimit, Collections.<Object>emptyList());
+    }
+
+    /**
+     * Creates a node that checks the ranges starting at the hot thresholds, in order, before searching. Nodes
+     * with a dense table ignore the hot thresholds, since their lookup is a single array access already.
+     */
+    private IntegerNode(final InputType type, final Map<Integer, Object> children, final int denseTableLimit, final List<Object> hotThresholds) {
         super(type);
 
-        this.children = new ArrayList<Map.Entry<Integer, Object>>();
-        for (Map.Entry<Integer, Object> entry : children.entrySet()) {
-            this.children.add(new SimpleEntry<Integer, Object>(entry));
+        final SortedMap<Integer, Object> sorted = new TreeMap<Integer, Object>(children);
+        this.thresholds = new int[sorted.size()];
+        this.children = new Object[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Object> entry : sorted.entrySet()) {
+            this.thresholds[i] = entry.getKey();
+            this.children[i] = entry.getValue();
+            i++;
+        }
+
+        if (thresholds.length > LINEAR_SEARCH_LIMIT) {
+            layout = new int[thresholds.length + 1];
+            layoutIndexes = new int[thresholds.length + 1];
+            buildLayout(thresholds, layout, layoutIndexes);
+        } else {
+            layout = null;
+            layoutIndexes = null;
         }
-        Collections.sort(this.children, new Comparator<Map.Entry<Integer, Object>>() {
-            @Override
-            public int compare(final Map.Entry<Integer, Object> o1, final Map.Entry<Integer, Object> o2) {
-                if (o1.getKey() == Integer.MIN_VALUE) return 1;
-                if (o2.getKey() == Integer.MIN_VALUE) return -1;
-                return o2.getKey() - o1.getKey();
+
+        table = buildTable(type, denseTableLimit);
+        tableOffset = table == null ? 0 : ((IntegerInputType) type).getMinValue();
+
+        final List<Integer> hotIndexes = new ArrayList<Integer>();
+        for (Object hotThreshold : table == null ? hotThresholds : Collections.<Object>emptyList()) {
+            final int index = hotThreshold instanceof Integer ? Arrays.binarySearch(thresholds, (Integer) hotThreshold) : -1;
+            if (index >= 0) {
+                hotIndexes.add(index);
             }
-        });
+        }
+        hotLows = new int[hotIndexes.size()];
+        hotHighs = new int[hotIndexes.size()];
+        hotChildren = new Object[hotIndexes.size()];
+        for (int hot = 0; hot < hotLows.length; hot++) {
+            final int index = hotIndexes.get(hot);
+            hotLows[hot] = thresholds[index];
+            hotHighs[hot] = index + 1 < thresholds.length ? thresholds[index + 1] - 1 : Integer.MAX_VALUE;
+            hotChildren[hot] = this.children[index];
+        }
+    }
+
+    /**
+     * Resolves the child of every value in the input type's declared domain up front, if the domain is
+     * small enough, so that those values need a single array access instead of a search.
+     */
+    private Object[] buildTable(final InputType type, final int denseTableLimit) {
+        if (!(type instanceof IntegerInputType)) {
+            return null;
+        }
+
+        final IntegerInputType integerType = (IntegerInputType) type;
+        final long size = (long) integerType.getMaxValue() - integerType.getMinValue() + 1;
+        if (size > denseTableLimit) {
+            return null;
+        }
+
+        final Object[] result = new Object[(int) size];
+        for (int i = 0; i < result.length; i++) {
+            final int index = indexOf(integerType.getMinValue() + i);
+            result[i] = index < 0 ? null : children[index];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lower bound of each mapping in ascending order. A fact value selects the child of the
+     * greatest threshold that is less than or equal to it.
+     */
+    public int[] getThresholds() {
+        return thresholds.clone();
+    }
+
+    /**
+     * Returns the child (a {@link Node} or {@link ResultNode}) of each threshold, in the same order as
+     * {@link #getThresholds()}.
+     */
+    public Object[] getChildren() {
+        return children.clone();
     }
 
     @Override
     public Object doEvaluate(final DecisionTreeFacts facts) throws InvalidFactException {
-        final Integer key = facts.getInt(getName());
-        if (key == null) {
-            throw new MissingFactException(getName());
+        return childOf(readInt(facts));
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        long size = super.getEstimatedSize() + SizeEstimates.array(thresholds.length, 4) + SizeEstimates.array(children.length, SizeEstimates.REFERENCE);
+        if (layout != null) {
+            size += SizeEstimates.array(layout.length, 4) + SizeEstimates.array(layoutIndexes.length, 4);
+        }
+        if (table != null) {
+            size += SizeEstimates.array(table.length, SizeEstimates.REFERENCE);
         }
+        size += 2 * SizeEstimates.array(hotLows.length, 4) + SizeEstimates.array(hotChildren.length, SizeEstimates.REFERENCE);
+        return size;
+    }
+
+    /**
+     * Returns the lower bounds of the ranges checked ahead of the search, hottest first.
+     */
+    public int[] getHotThresholds() {
+        return hotLows.clone();
+    }
+
+    @Override
+    protected Node rebuild(final DecisionTreeMetrics profile, final Map<Node, Node> optimized, final List<Object> hotBranches) {
+        final Map<Integer, Object> rebuilt = new HashMap<Integer, Object>();
+        for (int i = 0; i < thresholds.length; i++) {
+            rebuilt.put(thresholds[i], optimizeChild(children[i], profile, optimized));
+        }
+        return new IntegerNode(getType(), rebuilt, table == null ? 0 : table.length, hotBranches);
+    }
+
+    /**
+     * Branches are numbered in threshold order.
+     */
+    @Override
+    protected int selectBranch(final DecisionTreeFacts facts) throws InvalidFactException {
+        return indexOf(readInt(facts));
+    }
+
+    @Override
+    public int getBranchCount() {
+        return thresholds.length;
+    }
 
-        for (Map.Entry<Integer, Object> entry : children) {
-            if (key >= entry.getKey()) {
-                return entry.getValue();
+    @Override
+    public Object getBranchKey(final int branch) {
+        return thresholds[branch];
+    }
+
+    @Override
+    public Object getChild(final int branch) {
+        return children[branch];
+    }
+
+    @Override
+    protected void selectChildren(final FactBatch batch, final int[] rows, final int from, final int to, final Object[] selected) throws InvalidFactException {
+        final int[] column = intColumn(batch);
+        if (table != null || thresholds.length > BATCH_SCAN_LIMIT) {
+            for (int i = from; i < to; i++) {
+                selected[i - from] = childOf(column[rows[i]]);
+            }
+            return;
+        }
+
+        final int[] keys = new int[Math.min(to - from, BATCH_BLOCK)];
+        final int[] indexes = new int[keys.length];
+        for (int start = from; start < to; start += keys.length) {
+            final int length = Math.min(keys.length, to - start);
+            for (int i = 0; i < length; i++) {
+                keys[i] = column[rows[start + i]];
+            }
+            batchIndexOf(thresholds, keys, indexes, length);
+            for (int i = 0; i < length; i++) {
+                selected[start - from + i] = indexes[i] < 0 ? null : children[indexes[i]];
             }
         }
-        return null;
+    }
+
+    private Object childOf(final int key) {
+        for (int hot = 0; hot < hotLows.length; hot++) {
+            if (key >= hotLows[hot] && key <= hotHighs[hot]) {
+                return hotChildren[hot];
+            }
+        }
+        if (table != null) {
+            // Overflow in the subtraction can only produce offsets outside the table
+            final int offset = key - tableOffset;
+            if (offset >= 0 && offset < table.length) {
+                return table[offset];
+            }
+        }
+
+        final int index = indexOf(key);
+        return index < 0 ? null : children[index];
+    }
+
+    boolean hasDenseTable() {
+        return table != null;
+    }
+
+    /**
+     * Returns the index of the greatest threshold that is less than or equal to the key, or -1 if every
+     * threshold is greater than the key.
+     */
+    int indexOf(final int key) {
+        return layout == null ? linearIndexOf(thresholds, key) : layoutIndexOf(layout, layoutIndexes, key);
+    }
+
+    /**
+     * Counts the thresholds at or below the key. Every threshold is compared regardless of the key, so the
+     * only branch is the loop itself.
+     */
+    static int linearIndexOf(final int[] thresholds, final int key) {
+        int index = -1;
+        for (int threshold : thresholds) {
+            index += key >= threshold ? 1 : 0;
+        }
+        return index;
+    }
+
+    /**
+     * Stores linearIndexOf(thresholds, keys[i]) in indexes[i] for the first length keys. The loops run over
+     * thresholds and then keys, and "key < threshold" is computed with integer arithmetic alone (it is the
+     * sign of key - threshold, corrected for overflow), so the inner loop has no branches or data-dependent
+     * loads and the JIT can vectorize it.
+     */
+    static void batchIndexOf(final int[] thresholds, final int[] keys, final int[] indexes, final int length) {
+        Arrays.fill(indexes, 0, length, thresholds.length - 1);
+        for (int threshold : thresholds) {
+            for (int i = 0; i < length; i++) {
+                final int key = keys[i];
+                final int difference = key - threshold;
+                indexes[i] -= (difference ^ ((key ^ threshold) & (difference ^ key))) >>> 31;
+            }
+        }
+    }
+
+    /**
+     * Binary search over thresholds stored in Eytzinger order, where the children of position k are at 2k and
+     * 2k + 1. The first levels of the search share a few cache lines no matter which way it goes.
+     */
+    static int layoutIndexOf(final int[] layout, final int[] layoutIndexes, final int key) {
+        int k = 1;
+        while (k < layout.length) {
+            k = (k << 1) + (layout[k] <= key ? 1 : 0);
+        }
+
+        // Undo the trailing right turns to find the first threshold greater than the key (0 if there is none)
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return layoutIndexes[k] - 1;
+    }
+
+    /**
+     * Fills the Eytzinger layout of the sorted thresholds. Each position also records the sorted index of its
+     * threshold, and position 0 records the number of thresholds.
+     */
+    static void buildLayout(final int[] thresholds, final int[] layout, final int[] layoutIndexes) {
+        layoutIndexes[0] = thresholds.length;
+        fillLayout(thresholds, layout, layoutIndexes, 0, 1);
+    }
+
+    private static int fillLayout(final int[] thresholds, final int[] layout, final int[] layoutIndexes, int index, final int k) {
+        if (k < layout.length) {
+            index = fillLayout(thresholds, layout, layoutIndexes, index, k << 1);
+            layout[k] = thresholds[index];
+            layoutIndexes[k] = index++;
+            index = fillLayout(thresholds, layout, layoutIndexes, index, (k << 1) + 1);
+        }
+        return index;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     protected void validateShallow() throws DecisionTreeParserException {
         final IntegerInputType type = (IntegerInputType) getType();
-        final List valuesToInspect = new ArrayList(children);
 
         final int minValue = type.getMinValue();
         final int maxValue = type.getMaxValue();
         boolean includedMinValue = false;
-        for (Object o : valuesToInspect) {
-            final Map.Entry<Integer, ?> entry = (Map.Entry<Integer, ?>) o;
-            final Integer key = entry.getKey();
+        for (int key : thresholds) {
             if (key < minValue) {
                 throw new DecisionTreeParserException("Invalid configuration: Node \"" + getName() + "\" cannot match value " + key + " because it falls below the min value allowed");
             } else if (key > maxValue) {
@@ -98,9 +355,9 @@ public class IntegerNode extends AbstractNode {
     @Override
     protected Collection<Node> getChildNodes() {
         final Collection<Node> result = new ArrayList<Node>();
-        for (Map.Entry<Integer, Object> child : children) {
-            if (child.getValue() instanceof Node) {
-                result.add((Node) child.getValue());
+        for (Object child : children) {
+            if (child instanceof Node) {
+                result.add((Node) child);
             }
         }
         return result;
@@ -110,11 +367,22 @@ public class IntegerNode extends AbstractNode {
         private final InputType type;
         private final References references = new References();
         private final Map<Integer, Object> children = new HashMap<Integer, Object>();
+        private int denseTableLimit = DEFAULT_DENSE_TABLE_LIMIT;
 
         public Builder(final InputType type) {
             this.type = type;
         }
 
+        /**
+         * Sets the largest input domain for which the node builds a dense table of children, indexed by fact
+         * value. Inputs with larger domains, or values outside the domain, are searched instead. Zero disables
+         * dense tables.
+         */
+        public Builder setDenseTableLimit(final int denseTableLimit) {
+            this.denseTableLimit = denseTableLimit;
+            return this;
+        }
+
         public NodeBuilder addResultMapping(final String key, final ResultNode result) throws DecisionTreeParserException {
             return addChild(key, result);
         }
@@ -156,7 +424,7 @@ public class IntegerNode extends AbstractNode {
 
         public IntegerNode build() throws DecisionTreeParserException {
             references.resolveAll(this);
-            return new IntegerNode(type, children);
+            return new IntegerNode(type, children, denseTableLimit);
         }
     }
 }
@@ -20,6 +20,7 @@
 package com.abyala.decisiontree.nodes;
 
 import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.FactBatch;
 import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
 import com.abyala.decisiontree.exceptions.InvalidFactException;
 import com.abyala.decisiontree.types.InputType;
@@ -34,4 +35,18 @@ public interface Node {
 
     void validate() throws DecisionTreeParserException;
     Object evaluate(DecisionTreeFacts facts) throws InvalidFactException;
+    ResultNode resolve(DecisionTreeFacts facts) throws InvalidFactException;
+
+    /**
+     * Walks the path the facts select like resolve, reporting it to the visitor, and returns the leaf
+     * reached. Instead of throwing for a missing fact, an unmapped value or a fact of the wrong type, the
+     * walk reports the failure to the visitor and returns null.
+     */
+    ResultNode walk(DecisionTreeFacts facts, NodeVisitor visitor);
+
+    /**
+     * Resolves the batch rows listed in rows[from, to), storing each row's leaf in results[row]. The rows
+     * in that range may be reordered.
+     */
+    void resolveBatch(FactBatch batch, int[] rows, int from, int to, ResultNode[] results) throws InvalidFactException;
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.nodes;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+
+/**
+ * Observes a walk through a tree's nodes (see {@link Node#walk(DecisionTreeFacts, NodeVisitor)}): each
+ * branch taken, then either the leaf reached or the node at which the walk stopped.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public interface NodeVisitor {
+    /**
+     * Called for each node that selected a child, with the branch it took. See
+     * {@link AbstractNode#getBranchKey(int)} and {@link AbstractNode#getChild(int)}.
+     */
+    void visitBranch(AbstractNode node, DecisionTreeFacts facts, int branch);
+
+    void visitLeaf(ResultNode leaf);
+
+    /**
+     * Called instead of visitLeaf for the node at which the walk stopped. The status is NO_MAPPING,
+     * MISSING_FACT or INVALID_FACT, and the error is the exception reading the fact threw for INVALID_FACT
+     * and null otherwise.
+     */
+    void visitFailure(AbstractNode node, DecisionTreeFacts facts, Evaluation.Status status, InvalidFactException error);
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.nodes;
+
+import java.util.*;
+
+/**
+ * Immutable map from a fixed set of strings, using a minimal perfect hash built with hash-and-displace.
+ * The key's hash picks a bucket, the bucket's displacement picks the slot, and a single equals check
+ * decides between the slot's value and the missing value.
+ * <p>
+ * Keys are normally hashed with {@link String#hashCode()}, which strings cache. If two keys share a hash
+ * code, a seeded hash over the characters is used instead.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+final class PerfectStringMap {
+    private static final int MAX_DISPLACEMENT = 1 << 16;
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int[] displacements;
+    private final Object missingValue;
+    private final int salt;
+
+    private PerfectStringMap(final String[] keys, final Object[] values, final int[] displacements, final Object missingValue, final int salt) {
+        this.keys = keys;
+        this.values = values;
+        this.displacements = displacements;
+        this.missingValue = missingValue;
+        this.salt = salt;
+    }
+
+    /**
+     * Returns the value of the key, or the map's missing value if the key is not in the map.
+     */
+    Object get(final String key) {
+        final int hash = hash(key, salt);
+        final int displacement = displacements[reduce(mix(hash, 0), displacements.length)];
+        final int slot = displacement < 0 ? ~displacement : reduce(mix(hash, displacement), keys.length);
+        return key.equals(keys[slot]) ? values[slot] : missingValue;
+    }
+
+    /**
+     * Estimates the map's arrays, not its keys and values.
+     */
+    long getEstimatedSize() {
+        return SizeEstimates.object(4 * SizeEstimates.REFERENCE + 4) + SizeEstimates.array(keys.length, SizeEstimates.REFERENCE)
+                + SizeEstimates.array(values.length, SizeEstimates.REFERENCE) + SizeEstimates.array(displacements.length, 4);
+    }
+
+    static PerfectStringMap build(final Map<String, ?> entries, final Object missingValue) {
+        final String[] sourceKeys = entries.keySet().toArray(new String[entries.size()]);
+        final int salt = chooseSalt(sourceKeys);
+        final int[] hashes = new int[sourceKeys.length];
+        for (int i = 0; i < sourceKeys.length; i++) {
+            hashes[i] = hash(sourceKeys[i], salt);
+        }
+
+        for (int size = Math.max(1, sourceKeys.length); ; size++) {
+            final int[] slots = new int[hashes.length];
+            final int[] displacements = new int[size];
+            if (place(hashes, slots, displacements)) {
+                final String[] keys = new String[size];
+                final Object[] values = new Object[size];
+                for (int i = 0; i < sourceKeys.length; i++) {
+                    keys[slots[i]] = sourceKeys[i];
+                    values[slots[i]] = entries.get(sourceKeys[i]);
+                }
+                return new PerfectStringMap(keys, values, displacements, missingValue, salt);
+            }
+        }
+    }
+
+    /**
+     * Assigns every hash a distinct slot, one per displacement, handling the most crowded buckets first.
+     * A bucket with a single entry takes any free slot and stores its complement as the displacement.
+     * Returns false if some bucket found no displacement that fits.
+     */
+    private static boolean place(final int[] hashes, final int[] slots, final int[] displacements) {
+        final int size = displacements.length;
+        final List<List<Integer>> buckets = new ArrayList<List<Integer>>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < hashes.length; i++) {
+            buckets.get(reduce(mix(hashes[i], 0), size)).add(i);
+        }
+
+        final List<Integer> order = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                return buckets.get(o2).size() - buckets.get(o1).size();
+            }
+        });
+
+        final boolean[] taken = new boolean[size];
+        int nextFree = 0;
+        for (Integer index : order) {
+            final List<Integer> bucket = buckets.get(index);
+            if (bucket.size() == 1) {
+                while (taken[nextFree]) {
+                    nextFree++;
+                }
+                taken[nextFree] = true;
+                slots[bucket.get(0)] = nextFree;
+                displacements[index] = ~nextFree;
+            } else if (bucket.size() > 1) {
+                final int displacement = displace(bucket, hashes, slots, taken);
+                if (displacement == 0) {
+                    return false;
+                }
+                displacements[index] = displacement;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first displacement that sends every entry of the bucket to a distinct free slot, and takes
+     * those slots. Returns 0 if there is none.
+     */
+    private static int displace(final List<Integer> bucket, final int[] hashes, final int[] slots, final boolean[] taken) {
+        for (int displacement = 1; displacement < MAX_DISPLACEMENT; displacement++) {
+            boolean fits = true;
+            for (int i = 0; i < bucket.size() && fits; i++) {
+                final int slot = reduce(mix(hashes[bucket.get(i)], displacement), taken.length);
+                fits = !taken[slot];
+                for (int j = 0; j < i && fits; j++) {
+                    fits = slots[bucket.get(j)] != slot;
+                }
+                slots[bucket.get(i)] = slot;
+            }
+
+            if (fits) {
+                for (Integer entry : bucket) {
+                    taken[slots[entry]] = true;
+                }
+                return displacement;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns 0 if the keys' own hash codes are distinct, otherwise the first salt that makes the seeded
+     * character hash distinct.
+     */
+    private static int chooseSalt(final String[] keys) {
+        for (int salt = 0; ; salt++) {
+            final Set<Integer> seen = new HashSet<Integer>();
+            boolean distinct = true;
+            for (int i = 0; i < keys.length && distinct; i++) {
+                distinct = seen.add(hash(keys[i], salt));
+            }
+            if (distinct) {
+                return salt;
+            }
+        }
+    }
+
+    private static int hash(final String key, final int salt) {
+        if (salt == 0) {
+            return key.hashCode();
+        }
+
+        int hash = 0x811C9DC5 ^ salt;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int mix(final int hash, final int seed) {
+        int x = hash ^ (seed * 0x9E3779B9);
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        x *= 0xC2B2AE35;
+        x ^= x >>> 16;
+        return x;
+    }
+
+    /**
+     * Maps a 32 bit hash onto [0, size) with a multiply instead of a division.
+     */
+    private static int reduce(final int hash, final int size) {
+        return (int) (((hash & 0xFFFFFFFFL) * size) >>> 32);
+    }
+}
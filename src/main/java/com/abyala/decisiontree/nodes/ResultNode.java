@@ -23,7 +23,6 @@ import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
 import com.abyala.decisiontree.results.ResultAttribute;
 import com.abyala.decisiontree.results.ResultSpec;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,42 +31,131 @@ import java.util.Map;
  * Date: 6/26/12
  */
 public class ResultNode {
+    private final int id;
     private final ResultSpec spec;
-    private final Map<String, String> resultFields = new HashMap<String, String>();
+    private final Object[] values;
+    private final Object[] creatorArguments;
+    private final Object sharedResult;
 
-    private ResultNode(final ResultSpec spec, final Map<String, String> resultFields) {
+    /**
+     * Resolves every attribute of the spec, defaults included, to the typed value passed to its setter, so
+     * that creating a result only applies the values by ordinal.
+     */
+    private ResultNode(final int id, final ResultSpec spec, final Map<String, String> resultFields) {
+        this.id = id;
         this.spec = spec;
-        this.resultFields.putAll(resultFields);
+        this.values = new Object[spec.getAttributeCount()];
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            final ResultAttribute attribute = spec.getAttribute(ordinal);
+            values[ordinal] = attribute.transformValueForSetter(resultFields.get(attribute.getName()));
+        }
+
+        if (spec.hasCreator()) {
+            final int[] ordinals = spec.getCreatorOrdinals();
+            creatorArguments = new Object[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                creatorArguments[i] = values[ordinals[i]];
+            }
+        } else {
+            creatorArguments = null;
+        }
+        this.sharedResult = spec.isImmutable() ? newResult() : null;
+    }
+
+    /**
+     * Returns a rough estimate of the heap bytes held by this leaf: its typed values and arguments, but not
+     * its spec or a shared result.
+     */
+    public long getEstimatedSize() {
+        long size = SizeEstimates.object(4 + 4 * SizeEstimates.REFERENCE) + SizeEstimates.array(values.length, SizeEstimates.REFERENCE);
+        for (Object value : values) {
+            size += SizeEstimates.value(value);
+        }
+        if (creatorArguments != null) {
+            size += SizeEstimates.array(creatorArguments.length, SizeEstimates.REFERENCE);
+        }
+        return size;
     }
 
+    /**
+     * Returns the ID of this leaf within its tree, or -1 if none was assigned.
+     */
+    public int getId() {
+        return id;
+    }
+
+    public ResultSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Returns the typed value of the attribute with the given ordinal in the spec.
+     */
+    public Object getValue(final int ordinal) {
+        return values[ordinal];
+    }
+
+    /**
+     * Returns the typed value of the named attribute, or null if the spec has no such attribute.
+     */
+    public Object getValue(final String name) {
+        final int ordinal = spec.getOrdinal(name);
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    /**
+     * Returns the result of this node: a new object each time, or the same shared object if the result
+     * spec is immutable.
+     */
     public Object createResult() {
-        try {
-            final Object result = spec.getResultClass().newInstance();
+        return sharedResult != null ? sharedResult : newResult();
+    }
 
-            for (ResultAttribute attribute : spec.getAllAttributes()) {
-                final String rawValue = resultFields.get(attribute.getName());
-                final Object valueToSet = attribute.transformValueForSetter(rawValue);
-                attribute.getSetter().invoke(result, valueToSet);
-            }
+    /**
+     * Sets every attribute of the spec on an existing result object, including attributes with no value,
+     * so that a reused object holds nothing from a previous result. Only specs that create results
+     * through setters support this.
+     */
+    public void applyTo(final Object target) {
+        if (spec.hasCreator()) {
+            throw new IllegalStateException("Result class " + spec.getResultClass().getName() + " is created through a constructor or factory and cannot be updated");
+        } else if (!spec.getResultClass().isInstance(target)) {
+            throw new IllegalArgumentException("Target " + target + " is not an instance of result class " + spec.getResultClass().getName());
+        }
+
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            spec.getAttribute(ordinal).applyTo(target, values[ordinal]);
+        }
+    }
 
-            return result;
-        } catch (InstantiationException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e);
+    private Object newResult() {
+        if (creatorArguments != null) {
+            return spec.create(creatorArguments);
         }
+
+        final Object result = spec.newInstance();
+
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            spec.getAttribute(ordinal).applyTo(result, values[ordinal]);
+        }
+
+        return result;
     }
 
     public static class Builder {
         private final ResultSpec spec;
         private final Map<String, String> resultFields = new HashMap<String, String>();
+        private int id = -1;
 
         public Builder(final ResultSpec spec) {
             this.spec = spec;
         }
 
+        public Builder setId(final int id) {
+            this.id = id;
+            return this;
+        }
+
         public Builder addAttribute(final String key, final String value) throws DecisionTreeParserException {
             spec.validateAttribute(key, value);
             this.resultFields.put(key, value);
@@ -75,7 +163,7 @@ public class ResultNode {
         }
 
         public ResultNode build() {
-            return new ResultNode(spec, resultFields);
+            return new ResultNode(id, spec, resultFields);
         }
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.nodes;
+
+/**
+ * Rough heap sizes for a 64-bit JVM with compressed references: 12-byte object headers, 16-byte array
+ * headers, 4-byte references and 8-byte alignment.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+final class SizeEstimates {
+    static final int REFERENCE = 4;
+
+    private SizeEstimates() {
+    }
+
+    static long object(final int fieldBytes) {
+        return align(12 + fieldBytes);
+    }
+
+    static long array(final int length, final int elementBytes) {
+        return align(16 + (long) length * elementBytes);
+    }
+
+    /**
+     * Estimates a HashMap's table and entries, not its keys and values.
+     */
+    static long hashMap(final int size) {
+        final int capacity = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1);
+        return object(6 * 4) + array(capacity, REFERENCE) + (long) size * object(4 + 3 * REFERENCE);
+    }
+
+    /**
+     * Estimates an attribute value: a Latin-1 string's characters, or a boxed primitive.
+     */
+    static long value(final Object value) {
+        if (value instanceof String) {
+            return object(REFERENCE + 4 + 2) + array(((String) value).length(), 1);
+        }
+        return value == null ? 0 : object(8);
+    }
+
+    private static long align(final long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -20,9 +20,10 @@
 package com.abyala.decisiontree.nodes;
 
 import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.FactBatch;
 import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
 import com.abyala.decisiontree.exceptions.InvalidFactException;
-import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
 import com.abyala.decisiontree.types.InputType;
 import com.abyala.decisiontree.types.StringInputType;
 
@@ -34,31 +35,144 @@ import java.util.*;
  */
 public class StringNode extends AbstractNode {
     private final Map<String, Object> children;
+    private final Object defaultChild;
+    private final PerfectStringMap table;
+    private final String[] hotKeys;
+    private final Object[] hotChildren;
+    private final String[] branchKeys;
+    private final Object[] branchChildren;
+    private final PerfectStringMap branchIndexes;
 
     private StringNode(final InputType type, final Map<String, Node> nodes, final Map<String, ResultNode> results) {
+        this(type, merge(nodes, results), Collections.<Object>emptyList());
+    }
+
+    /**
+     * Creates a node that compares fact values against the hot keys, in order, before looking them up.
+     */
+    private StringNode(final InputType type, final Map<String, Object> children, final List<Object> hotKeys) {
         super(type);
-        children = new HashMap<String, Object>() ;
+        this.children = children;
+
+        final String defaultValue = ((StringInputType) type).getDefaultValue();
+        defaultChild = defaultValue == null ? null : children.get(defaultValue);
+        table = PerfectStringMap.build(children, defaultChild);
+
+        branchKeys = new TreeSet<String>(children.keySet()).toArray(new String[children.size()]);
+        branchChildren = new Object[branchKeys.length];
+        final Map<String, Integer> indexes = new HashMap<String, Integer>();
+        for (int i = 0; i < branchKeys.length; i++) {
+            branchChildren[i] = children.get(branchKeys[i]);
+            indexes.put(branchKeys[i], i);
+        }
+        branchIndexes = PerfectStringMap.build(indexes, defaultValue == null ? null : indexes.get(defaultValue));
+
+        this.hotKeys = new String[hotKeys.size()];
+        this.hotChildren = new Object[hotKeys.size()];
+        for (int i = 0; i < this.hotKeys.length; i++) {
+            this.hotKeys[i] = (String) hotKeys.get(i);
+            this.hotChildren[i] = children.get(this.hotKeys[i]);
+        }
+    }
+
+    private static Map<String, Object> merge(final Map<String, Node> nodes, final Map<String, ResultNode> results) {
+        final Map<String, Object> children = new HashMap<String, Object>();
         children.putAll(nodes);
         children.putAll(results);
+        return children;
+    }
+
+    public Map<String, Object> getChildren() {
+        return Collections.unmodifiableMap(children);
+    }
+
+    /**
+     * Returns the child mapped to the input type's default value, which is used for any fact value
+     * that has no mapping of its own, or null if there is no such child.
+     */
+    public Object getDefaultChild() {
+        return defaultChild;
     }
 
     @Override
     public Object doEvaluate(final DecisionTreeFacts facts) throws InvalidFactException {
-        final String key = facts.getString(getName());
-        if (key == null) {
-            throw new MissingFactException(getName());
+        final String key = readString(facts);
+        for (int i = 0; i < hotKeys.length; i++) {
+            if (hotKeys[i].equals(key)) {
+                return hotChildren[i];
+            }
         }
+        return table.get(key);
+    }
 
-        if (children.containsKey(key)) {
-            return children.get(key);
-        } else {
-            final String defaultValue = ((StringInputType) getType()).getDefaultValue();
-            if (defaultValue != null && children.containsKey(defaultValue)) {
-                return children.get(defaultValue);
+    @Override
+    public long getEstimatedSize() {
+        return super.getEstimatedSize() + SizeEstimates.hashMap(children.size()) + table.getEstimatedSize()
+                + SizeEstimates.array(hotKeys.length, SizeEstimates.REFERENCE) + SizeEstimates.array(hotChildren.length, SizeEstimates.REFERENCE)
+                + 2 * SizeEstimates.array(branchKeys.length, SizeEstimates.REFERENCE) + branchIndexes.getEstimatedSize();
+    }
+
+    /**
+     * Hot keys must be mapped values of their own; facts that fall back to the default value are not
+     * matched by a hot key, but still reach the default child through the lookup.
+     */
+    @Override
+    protected Node rebuild(final DecisionTreeMetrics profile, final Map<Node, Node> optimized, final List<Object> hotBranches) {
+        final Map<String, Object> rebuilt = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : children.entrySet()) {
+            rebuilt.put(entry.getKey(), optimizeChild(entry.getValue(), profile, optimized));
+        }
+        final List<Object> hotKeys = new ArrayList<Object>();
+        for (Object branch : hotBranches) {
+            if (rebuilt.containsKey(branch)) {
+                hotKeys.add(branch);
             }
         }
+        return new StringNode(getType(), rebuilt, hotKeys);
+    }
+
+    /**
+     * Returns the keys compared ahead of the general lookup, hottest first.
+     */
+    public List<String> getHotKeys() {
+        return Collections.unmodifiableList(Arrays.asList(hotKeys));
+    }
+
+    /**
+     * Branches are numbered in the order of their sorted keys. A fact value without a mapping of its own
+     * selects the branch of the input type's default value.
+     */
+    @Override
+    protected int selectBranch(final DecisionTreeFacts facts) throws InvalidFactException {
+        final Integer branch = (Integer) branchIndexes.get(readString(facts));
+        return branch == null ? -1 : branch;
+    }
+
+    @Override
+    public int getBranchCount() {
+        return branchKeys.length;
+    }
 
-        return null;
+    @Override
+    public Object getBranchKey(final int branch) {
+        return branchKeys[branch];
+    }
+
+    @Override
+    public Object getChild(final int branch) {
+        return branchChildren[branch];
+    }
+
+    @Override
+    protected void selectChildren(final FactBatch batch, final int[] rows, final int from, final int to, final Object[] selected) throws InvalidFactException {
+        final String[] column = stringColumn(batch);
+        for (int i = from; i < to; i++) {
+            final String key = column[rows[i]];
+            if (key == null) {
+                throw missingFact();
+            }
+            selected[i - from] = table.get(key);
+        }
     }
 
     @Override
@@ -19,7 +19,11 @@
 
 package com.abyala.decisiontree.results;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
 
 /**
  * User: abyala
@@ -28,10 +32,33 @@ import java.lang.reflect.Method;
 public abstract class AbstractResultAttribute implements ResultAttribute {
     protected final String name;
     protected final Method setter;
+    private final BiConsumer<Object, Object> setterFunction;
+    private final MethodHandle setterHandle;
 
     public AbstractResultAttribute(final String name, final Method setter) {
         this.name = name;
         this.setter = setter;
+        this.setterFunction = setter == null ? null : ResultAccessors.bindSetter(setter);
+        this.setterHandle = setterFunction == null ? bind(setter) : null;
+    }
+
+    /**
+     * Binds the setter as a handle taking (Object, Object) for result classes that cannot be bound as a
+     * lambda, so each call still skips the access checks and argument array of Method.invoke. Returns null
+     * if there is no setter or it is not publicly accessible, in which case applyTo falls back to
+     * Method.invoke.
+     */
+    private static MethodHandle bind(final Method setter) {
+        if (setter == null) {
+            return null;
+        }
+
+        try {
+            return MethodHandles.publicLookup().unreflect(setter)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
     }
 
     @Override
@@ -43,4 +70,26 @@ public abstract class AbstractResultAttribute implements ResultAttribute {
     public Method getSetter() {
         return setter;
     }
+
+    @Override
+    public void applyTo(final Object result, final Object value) {
+        if (setterFunction != null) {
+            setterFunction.accept(result, value);
+            return;
+        }
+
+        try {
+            if (setterHandle != null) {
+                setterHandle.invokeExact(result, value);
+            } else {
+                setter.invoke(result, value);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
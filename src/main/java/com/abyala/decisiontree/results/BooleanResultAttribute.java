@@ -47,6 +47,11 @@ public class BooleanResultAttribute extends AbstractResultAttribute {
         return (rawValue == null ? defaultValue : Boolean.valueOf(rawValue));
     }
 
+    @Override
+    public Class<?> getValueType() {
+        return Boolean.class;
+    }
+
     public static class Builder {
         private final String name;
         private final Method setter;
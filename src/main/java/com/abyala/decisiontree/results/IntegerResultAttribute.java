@@ -49,6 +49,11 @@ public class IntegerResultAttribute extends AbstractResultAttribute {
         return rawValue == null ? defaultValue : Integer.parseInt(rawValue);
     }
 
+    @Override
+    public Class<?> getValueType() {
+        return Integer.class;
+    }
+
     public static class Builder {
         private final String name;
         private final Method method;
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.results;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Binds the constructors and setters of result classes as lambdas through LambdaMetafactory. A call through
+ * the lambda is a plain interface call that the JIT can inline wherever it sees a single result class,
+ * whereas a MethodHandle held in an instance field is not a constant, so the JIT cannot inline through it.
+ * Where the call site sees many setters, both cost about the same; ResultCreationBenchmark in the tests
+ * compares them with reflection.
+ * <p>
+ * Binding needs full private access to the result class, which is available for classes in the library's
+ * own unnamed module. Each method returns null when the class is out of reach, such as a class defined by
+ * another class loader, and callers fall back to a method handle or reflection.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+final class ResultAccessors {
+    private ResultAccessors() {
+    }
+
+    /**
+     * Returns a lambda calling the public no-arg constructor of the class, or null if it cannot be bound.
+     */
+    @SuppressWarnings("unchecked")
+    static Supplier<Object> bindConstructor(final Class<?> clazz) {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            final MethodHandle constructor = lookup.findConstructor(clazz, MethodType.methodType(void.class));
+            return (Supplier<Object>) metafactory(lookup, "get", Supplier.class, MethodType.methodType(Object.class), constructor);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a lambda calling the setter with a result and a boxed value, or null if it cannot be bound.
+     */
+    @SuppressWarnings("unchecked")
+    static BiConsumer<Object, Object> bindSetter(final Method setter) {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(setter.getDeclaringClass(), MethodHandles.lookup());
+            return (BiConsumer<Object, Object>) metafactory(lookup, "accept", BiConsumer.class,
+                    MethodType.methodType(void.class, Object.class, Object.class), lookup.unreflect(setter));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Spins a lambda of the functional interface whose erased method has the given type and calls the
+     * implementation, whose primitive parameters are unboxed and whose return value is dropped if the
+     * interface method returns void. Returns null if the lookup cannot define the lambda.
+     */
+    private static Object metafactory(final MethodHandles.Lookup lookup, final String methodName, final Class<?> functionalInterface,
+                                      final MethodType erasedType, final MethodHandle implementation) {
+        MethodType instantiatedType = implementation.type().wrap();
+        if (erasedType.returnType() == void.class) {
+            instantiatedType = instantiatedType.changeReturnType(void.class);
+        }
+
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(functionalInterface),
+                    erasedType, implementation, instantiatedType);
+            return site.getTarget().invoke();
+        } catch (LambdaConversionException e) {
+            return null;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create accessor for " + implementation, e);
+        }
+    }
+}
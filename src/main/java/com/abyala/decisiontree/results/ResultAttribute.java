@@ -35,4 +35,14 @@ public interface ResultAttribute {
     Method getSetter();
 
     Object transformValueForSetter(String rawValue);
+
+    /**
+     * Returns the type of the values passed to the setter or creator for this attribute.
+     */
+    Class<?> getValueType();
+
+    /**
+     * Sets the attribute on the result object, as its setter would.
+     */
+    void applyTo(Object result, Object value);
 }
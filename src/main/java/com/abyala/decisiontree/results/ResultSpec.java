@@ -21,7 +21,11 @@ package com.abyala.decisiontree.results;
 
 import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * User: abyala
@@ -30,16 +34,119 @@ import java.util.*;
 public class ResultSpec {
     private final Class clazz;
     private final Map<String, ResultAttribute> attributeMap;
+    private final ResultAttribute[] attributes;
+    private final Map<String, Integer> ordinals = new HashMap<String, Integer>();
+    private final boolean immutable;
+    private final Supplier<Object> constructorFunction;
+    private final MethodHandle constructor;
+    private final MethodHandle creator;
+    private final int[] creatorOrdinals;
 
-    private ResultSpec(final Class clazz, final Map<String, ResultAttribute> attributeMap) {
+    private ResultSpec(final Class clazz, final Map<String, ResultAttribute> attributeMap, final boolean immutable, final MethodHandle creator, final List<String> creatorParameters) {
         this.clazz = clazz;
-        this.attributeMap = Collections.unmodifiableMap(new HashMap<String, ResultAttribute>(attributeMap));
+        this.attributeMap = Collections.unmodifiableMap(new LinkedHashMap<String, ResultAttribute>(attributeMap));
+        this.attributes = this.attributeMap.values().toArray(new ResultAttribute[this.attributeMap.size()]);
+        for (int i = 0; i < attributes.length; i++) {
+            ordinals.put(attributes[i].getName(), i);
+        }
+        this.immutable = immutable;
+
+        if (creator == null) {
+            this.constructorFunction = ResultAccessors.bindConstructor(clazz);
+            this.constructor = constructorFunction == null ? bindConstructor(clazz) : null;
+            this.creator = null;
+            this.creatorOrdinals = null;
+        } else {
+            // Creators take any number of parameters, so they stay a spreading handle rather than a lambda
+            this.constructorFunction = null;
+            this.constructor = null;
+            this.creator = creator.asType(creator.type().generic()).asSpreader(Object[].class, creator.type().parameterCount());
+            this.creatorOrdinals = new int[creatorParameters.size()];
+            for (int i = 0; i < creatorOrdinals.length; i++) {
+                creatorOrdinals[i] = getOrdinal(creatorParameters.get(i));
+                if (creatorOrdinals[i] < 0) {
+                    throw new IllegalArgumentException("Creator parameter \"" + creatorParameters.get(i) + "\" of result class " + clazz.getName() + " has no attribute");
+                }
+            }
+        }
+    }
+
+    /**
+     * Binds the public no-arg constructor as a handle for result classes that cannot be bound as a lambda,
+     * or returns null if there is no accessible one, in which case newInstance falls back to reflection.
+     */
+    private static MethodHandle bindConstructor(final Class clazz) {
+        try {
+            return MethodHandles.publicLookup().findConstructor(clazz, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
     }
 
     public Class getResultClass() {
         return clazz;
     }
 
+    /**
+     * Returns true if results are created in a single call to a constructor or factory method that takes
+     * every attribute, rather than through a no-arg constructor and setters.
+     */
+    public boolean hasCreator() {
+        return creator != null;
+    }
+
+    /**
+     * Returns the ordinal of the attribute passed as each creator parameter.
+     */
+    public int[] getCreatorOrdinals() {
+        return creatorOrdinals.clone();
+    }
+
+    /**
+     * Creates a result by passing the arguments, in creator parameter order, to the creator.
+     */
+    public Object create(final Object[] arguments) {
+        try {
+            return creator.invokeExact(arguments);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates an empty result object through the result class's no-arg constructor.
+     */
+    public Object newInstance() {
+        if (constructorFunction != null) {
+            return constructorFunction.get();
+        }
+
+        try {
+            return constructor != null ? constructor.invokeExact() : clazz.getDeclaredConstructor().newInstance();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns true if results of this spec may be shared, in which case each result node creates its result
+     * once and returns that same instance from every evaluation.
+     */
+    public boolean isImmutable() {
+        return immutable;
+    }
+
     public void validateAttribute(final String key, final String value) throws DecisionTreeParserException {
         final ResultAttribute attribute = attributeMap.get(key);
         if (attribute == null) {
@@ -53,21 +160,61 @@ public class ResultSpec {
         return new HashSet<ResultAttribute>(attributeMap.values());
     }
 
+    /**
+     * Returns the number of attributes, which are numbered by ordinal in the order they were added.
+     */
+    public int getAttributeCount() {
+        return attributes.length;
+    }
+
+    public ResultAttribute getAttribute(final int ordinal) {
+        return attributes[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the named attribute, or -1 if the spec has no such attribute.
+     */
+    public int getOrdinal(final String name) {
+        final Integer ordinal = ordinals.get(name);
+        return ordinal == null ? -1 : ordinal;
+    }
+
     public static class Builder {
         private final Class clazz;
-        private final Map<String, ResultAttribute> attributeMap = new HashMap<String, ResultAttribute>();
+        private final Map<String, ResultAttribute> attributeMap = new LinkedHashMap<String, ResultAttribute>();
+        private boolean immutable;
+        private MethodHandle creator;
+        private List<String> creatorParameters;
 
         public Builder(final Class clazz) {
             this.clazz = clazz;
         }
 
+        public Builder setImmutable(final boolean immutable) {
+            this.immutable = immutable;
+            return this;
+        }
+
+        /**
+         * Creates results through the given constructor or factory method instead of a no-arg constructor and
+         * setters. Each parameter receives the value of the attribute named at the same position.
+         */
+        public Builder setCreator(final MethodHandle creator, final List<String> parameters) {
+            if (creator.type().parameterCount() != parameters.size()) {
+                throw new IllegalArgumentException("Creator takes " + creator.type().parameterCount() + " parameters but " + parameters.size() + " names were given");
+            }
+            this.creator = creator;
+            this.creatorParameters = new ArrayList<String>(parameters);
+            return this;
+        }
+
         public Builder addAttribute(final ResultAttribute attribute) {
             attributeMap.put(attribute.getName(), attribute);
             return this;
         }
 
         public ResultSpec build() {
-            return new ResultSpec(clazz, attributeMap);
+            return new ResultSpec(clazz, attributeMap, immutable, creator, creatorParameters);
         }
     }
 }
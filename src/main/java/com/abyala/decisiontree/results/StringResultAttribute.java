@@ -51,6 +51,11 @@ public class StringResultAttribute extends AbstractResultAttribute {
         return rawValue == null ? defaultValue : rawValue;
     }
 
+    @Override
+    public Class<?> getValueType() {
+        return String.class;
+    }
+
     public static class Builder {
         private final String name;
         private final Method method;
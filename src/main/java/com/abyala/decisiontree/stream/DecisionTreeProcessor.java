@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.stream;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.DecisionTreeFacts;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates a stream of facts and publishes their results in arrival order. Facts are gathered into batches
+ * of batchSize, and up to parallelism batches are evaluated at once on the executor. The processor asks
+ * upstream for no more facts than those batches can hold, and publishing blocks while any subscriber's
+ * buffer is full, so memory stays bounded however fast facts arrive. A partial batch is dispatched once it
+ * fills, once upstream completes, or once its first fact has waited maxLinger, so a quiet stream still
+ * sees its results. Finished batches are published as soon as every batch before them has been.
+ * <p>
+ * An invalid fact cancels the upstream subscription and fails every subscriber with its
+ * InvalidFactException.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class DecisionTreeProcessor extends SubmissionPublisher<Object> implements Flow.Processor<DecisionTreeFacts, Object> {
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final long DEFAULT_MAX_LINGER_MILLIS = 10;
+
+    private final DecisionTree tree;
+    private final Executor executor;
+    private final int batchSize;
+    private final int parallelism;
+    private final long maxLingerNanos;
+    private final Executor lingerTimer;
+
+    /**
+     * Guards the batches and upstream state below. It is never held while a batch is evaluated or its
+     * results are published, so linger timeouts and finished batches never wait behind a full buffer.
+     */
+    private final Object lock = new Object();
+    private final Deque<FutureTask<Object[]>> inFlight = new ArrayDeque<FutureTask<Object[]>>();
+    private List<DecisionTreeFacts> pending;
+    private boolean completed;
+    private Throwable error;
+
+    /**
+     * Counts requests to drain, so that only one thread publishes at a time and results stay in order.
+     */
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private Flow.Subscription subscription;
+
+    private DecisionTreeProcessor(final DecisionTree tree, final Executor executor, final int batchSize, final int parallelism, final int maxBufferCapacity, final long maxLingerNanos) {
+        super(executor, maxBufferCapacity);
+        this.tree = tree;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.maxLingerNanos = maxLingerNanos;
+        this.lingerTimer = maxLingerNanos == 0 ? null : CompletableFuture.delayedExecutor(maxLingerNanos, TimeUnit.NANOSECONDS, executor);
+        this.pending = new ArrayList<DecisionTreeFacts>(batchSize);
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request((long) batchSize * parallelism);
+    }
+
+    @Override
+    public void onNext(final DecisionTreeFacts item) {
+        synchronized (lock) {
+            if (completed || error != null) {
+                return;
+            }
+
+            pending.add(item);
+            if (pending.size() == batchSize) {
+                dispatch();
+            } else if (pending.size() == 1 && lingerTimer != null) {
+                scheduleFlush(pending);
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        synchronized (lock) {
+            if (error == null) {
+                error = throwable;
+            }
+            for (FutureTask<Object[]> task : inFlight) {
+                task.cancel(false);
+            }
+            inFlight.clear();
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (lock) {
+            if (completed || error != null) {
+                return;
+            }
+
+            completed = true;
+            if (!pending.isEmpty()) {
+                dispatch();
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Dispatches the batch after maxLinger unless it has filled, or been dispatched, by then.
+     */
+    private void scheduleFlush(final List<DecisionTreeFacts> batch) {
+        lingerTimer.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (lock) {
+                    if (pending != batch || completed || error != null) {
+                        return;
+                    }
+                    dispatch();
+                }
+                drain();
+            }
+        });
+    }
+
+    private void dispatch() {
+        final List<DecisionTreeFacts> batch = pending;
+        pending = new ArrayList<DecisionTreeFacts>(batchSize);
+
+        final FutureTask<Object[]> task = new FutureTask<Object[]>(new Callable<Object[]>() {
+            @Override
+            public Object[] call() throws Exception {
+                final Object[] results = new Object[batch.size()];
+                for (int i = 0; i < results.length; i++) {
+                    results[i] = tree.evaluate(batch.get(i));
+                }
+                return results;
+            }
+        }) {
+            /**
+             * Publishes the batch, and any finished batches behind it, as soon as it is at the head of the
+             * queue, rather than when the next fact or completion arrives.
+             */
+            @Override
+            protected void done() {
+                if (!isCancelled()) {
+                    drain();
+                }
+            }
+        };
+        inFlight.add(task);
+        if (parallelism > 1) {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Publishes finished batches in order, and asks upstream to replace their facts. Waits for the oldest
+     * batch while parallelism batches are in flight, since upstream will send nothing more until one is
+     * done, or for every batch once upstream has completed. A thread that asks while another is draining
+     * leaves the work to that thread, which drains again before it returns.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            drainBatches();
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainBatches() {
+        while (!isClosed()) {
+            final FutureTask<Object[]> head;
+            final boolean all;
+            synchronized (lock) {
+                if (error != null) {
+                    closeExceptionally(error);
+                    return;
+                }
+                head = inFlight.peek();
+                all = completed;
+                if (head == null) {
+                    if (all) {
+                        close();
+                    }
+                    return;
+                } else if (!all && inFlight.size() < parallelism && !head.isDone()) {
+                    return;
+                }
+            }
+
+            final Object[] results;
+            try {
+                // Runs the batch here if no executor thread has started it, which also keeps a processor
+                // that is fed by its own executor from waiting on work queued behind itself
+                head.run();
+                results = head.get();
+            } catch (CancellationException e) {
+                // onError cancelled the batch, and the next pass closes the processor
+                continue;
+            } catch (ExecutionException e) {
+                fail(e.getCause());
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+                continue;
+            }
+
+            synchronized (lock) {
+                inFlight.poll();
+            }
+            for (Object result : results) {
+                submit(result);
+            }
+            if (!all) {
+                subscription.request(results.length);
+            }
+        }
+    }
+
+    private void fail(final Throwable throwable) {
+        subscription.cancel();
+        onError(throwable);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getMaxLinger(final TimeUnit unit) {
+        return unit.convert(maxLingerNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static class Builder {
+        private final DecisionTree tree;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        private int maxBufferCapacity = Flow.defaultBufferSize();
+        private long maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_LINGER_MILLIS);
+
+        public Builder(final DecisionTree tree) {
+            this.tree = tree;
+        }
+
+        /**
+         * Sets the executor that evaluates batches and delivers results to subscribers. Defaults to the
+         * common fork/join pool.
+         */
+        public Builder setExecutor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder setBatchSize(final int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets how many batches may be evaluated at once. With a parallelism of 1, batches are evaluated on
+         * the thread that delivers the facts. Defaults to the parallelism of the common pool.
+         */
+        public Builder setParallelism(final int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets how many results may wait for each subscriber before publishing blocks.
+         */
+        public Builder setMaxBufferCapacity(final int maxBufferCapacity) {
+            this.maxBufferCapacity = maxBufferCapacity;
+            return this;
+        }
+
+        /**
+         * Sets how long the first fact of a partial batch may wait for the batch to fill before it is
+         * evaluated anyway. Zero holds partial batches until they fill or upstream completes. Defaults to
+         * DEFAULT_MAX_LINGER_MILLIS.
+         */
+        public Builder setMaxLinger(final long maxLinger, final TimeUnit unit) {
+            this.maxLingerNanos = unit.toNanos(maxLinger);
+            return this;
+        }
+
+        public DecisionTreeProcessor build() {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+            } else if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            } else if (maxBufferCapacity <= 0) {
+                throw new IllegalArgumentException("Buffer capacity must be positive: " + maxBufferCapacity);
+            } else if (maxLingerNanos < 0) {
+                throw new IllegalArgumentException("Max linger must not be negative: " + maxLingerNanos + "ns");
+            }
+            return new DecisionTreeProcessor(tree, executor, batchSize, parallelism, maxBufferCapacity, maxLingerNanos);
+        }
+    }
+}
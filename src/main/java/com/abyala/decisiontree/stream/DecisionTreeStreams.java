@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.stream;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.DecisionTreeFacts;
+
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public final class DecisionTreeStreams {
+    private DecisionTreeStreams() {
+    }
+
+    /**
+     * Returns a lazy stream of the results of each facts element, in encounter order. The result is parallel
+     * if the source is, and closing it closes the source.
+     */
+    public static Stream<Object> evaluate(final DecisionTree tree, final Stream<? extends DecisionTreeFacts> facts) {
+        return StreamSupport.stream(new EvaluatingSpliterator(tree, facts.spliterator()), facts.isParallel())
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        facts.close();
+                    }
+                });
+    }
+
+    /**
+     * Returns a processor that evaluates a stream of facts with the default batch size, parallelism and
+     * buffer capacity.
+     */
+    public static DecisionTreeProcessor processor(final DecisionTree tree) {
+        return new DecisionTreeProcessor.Builder(tree).build();
+    }
+}
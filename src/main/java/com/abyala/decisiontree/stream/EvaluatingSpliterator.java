@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.stream;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.UncheckedInvalidFactException;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates each facts element of another spliterator, in its order. Splitting is delegated to the source,
+ * so a parallel stream over this spliterator evaluates its splits concurrently. Invalid facts are thrown
+ * as an UncheckedInvalidFactException.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class EvaluatingSpliterator implements Spliterator<Object> {
+    private final DecisionTree tree;
+    private final Spliterator<? extends DecisionTreeFacts> source;
+
+    public EvaluatingSpliterator(final DecisionTree tree, final Spliterator<? extends DecisionTreeFacts> source) {
+        this.tree = tree;
+        this.source = source;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Object> action) {
+        return source.tryAdvance(new Consumer<DecisionTreeFacts>() {
+            @Override
+            public void accept(final DecisionTreeFacts facts) {
+                action.accept(evaluate(facts));
+            }
+        });
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super Object> action) {
+        source.forEachRemaining(new Consumer<DecisionTreeFacts>() {
+            @Override
+            public void accept(final DecisionTreeFacts facts) {
+                action.accept(evaluate(facts));
+            }
+        });
+    }
+
+    private Object evaluate(final DecisionTreeFacts facts) {
+        try {
+            return tree.evaluate(facts);
+        } catch (InvalidFactException e) {
+            throw new UncheckedInvalidFactException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<Object> trySplit() {
+        final Spliterator<? extends DecisionTreeFacts> split = source.trySplit();
+        return split == null ? null : new EvaluatingSpliterator(tree, split);
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    /**
+     * Keeps the source's ordering and size characteristics. Results are never null, but are neither sorted
+     * nor distinct.
+     */
+    @Override
+    public int characteristics() {
+        return (source.characteristics() & (ORDERED | SIZED | SUBSIZED | IMMUTABLE | CONCURRENT)) | NONNULL;
+    }
+}
@@ -28,9 +28,11 @@ import com.abyala.decisiontree.nodes.NodeBuilder;
  */
 public class BooleanInputType implements InputType {
     private final String name;
+    private final int slot;
 
-    private BooleanInputType(final String name) {
+    private BooleanInputType(final String name, final int slot) {
         this.name = name;
+        this.slot = slot;
     }
 
     @Override
@@ -38,6 +40,11 @@ public class BooleanInputType implements InputType {
         return name;
     }
 
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
     @Override
     public NodeBuilder createNodeBuilder() {
         return new BooleanNode.Builder(this);
@@ -45,13 +52,19 @@ public class BooleanInputType implements InputType {
 
     public static class Builder implements InputTypeBuilder {
         private final String name;
+        private int slot = -1;
 
         public Builder(final String name) {
             this.name = name;
         }
 
+        public Builder setSlot(final int slot) {
+            this.slot = slot;
+            return this;
+        }
+
         public BooleanInputType build() {
-            return new BooleanInputType(name);
+            return new BooleanInputType(name, slot);
         }
     }
 
@@ -27,5 +27,12 @@ import com.abyala.decisiontree.nodes.NodeBuilder;
  */
 public interface InputType {
     String getName();
+
+    /**
+     * Returns the position of this input in its tree's {@link com.abyala.decisiontree.InputSchema}, or -1 if
+     * it has none.
+     */
+    int getSlot();
+
     NodeBuilder createNodeBuilder();
 }
@@ -28,11 +28,13 @@ import com.abyala.decisiontree.nodes.NodeBuilder;
  */
 public class IntegerInputType implements InputType {
     private final String name;
+    private final int slot;
     private final int maxValue;
     private final int minValue;
 
-    private IntegerInputType(final String name, final int minValue, final int maxValue) {
+    private IntegerInputType(final String name, final int slot, final int minValue, final int maxValue) {
         this.name = name;
+        this.slot = slot;
         this.minValue = minValue;
         this.maxValue = maxValue;
     }
@@ -42,6 +44,11 @@ public class IntegerInputType implements InputType {
         return name;
     }
 
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
     public int getMaxValue() {
         return maxValue;
     }
@@ -57,6 +64,7 @@ public class IntegerInputType implements InputType {
 
     public static class Builder implements InputTypeBuilder {
         private final String name;
+        private int slot = -1;
         private int minValue = Integer.MIN_VALUE;
         private int maxValue = Integer.MAX_VALUE;
 
@@ -65,7 +73,12 @@ public class IntegerInputType implements InputType {
         }
 
         public IntegerInputType build() {
-            return new IntegerInputType(name, minValue, maxValue);
+            return new IntegerInputType(name, slot, minValue, maxValue);
+        }
+
+        public Builder setSlot(final int slot) {
+            this.slot = slot;
+            return this;
         }
 
         public Builder setMinValue(final int value) {
@@ -32,11 +32,13 @@ import java.util.Set;
  */
 public class StringInputType implements InputType {
     private final String name;
+    private final int slot;
     private final Set<String> enumValues;
     private final String defaultValue;
 
-    private StringInputType(final String name, final Set<String> values, final String defaultValue) {
+    private StringInputType(final String name, final int slot, final Set<String> values, final String defaultValue) {
         this.name = name;
+        this.slot = slot;
         this.enumValues = Collections.unmodifiableSet(new HashSet<String>(values));
         this.defaultValue = defaultValue;
     }
@@ -46,6 +48,11 @@ public class StringInputType implements InputType {
         return name;
     }
 
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
     @Override
     public NodeBuilder createNodeBuilder() {
         return new StringNode.Builder(this);
@@ -63,6 +70,7 @@ public class StringInputType implements InputType {
         private final Set<String> enumValues = new HashSet<String>();
         private final String name;
         private String defaultValue;
+        private int slot = -1;
 
         public Builder(final String name) {
             this.name = name;
@@ -76,8 +84,13 @@ public class StringInputType implements InputType {
             return this;
         }
 
+        public Builder setSlot(final int slot) {
+            this.slot = slot;
+            return this;
+        }
+
         public StringInputType build() {
-            return new StringInputType(name, enumValues, defaultValue);
+            return new StringInputType(name, slot, enumValues, defaultValue);
         }
     }
 
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+
+import java.io.File;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Base for tests that evaluate the testReferences.xml tree, which maps a letter fact and a range fact to a
+ * SimpleStringResult.
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public abstract class AbstractReferencesTreeTest extends AbstractDecisionTreeTest {
+    protected static final String REFERENCES_FILE = "src" + File.separator + "test" + File.separator + "resources" + File.separator + "testReferences.xml";
+
+    @Override
+    protected String getFileLocation() {
+        return REFERENCES_FILE;
+    }
+
+    /**
+     * Creates facts for the references tree, leaving out either fact if it is null.
+     */
+    protected SimpleDecisionTreeFacts createFacts(final String letter, final Integer range) {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        if (letter != null) {
+            facts.put("letter", letter);
+        }
+        if (range != null) {
+            facts.put("range", range);
+        }
+        return facts;
+    }
+
+    protected void expectFailure(final DecisionTreeFacts facts) {
+        try {
+            tree.evaluate(facts);
+            fail("Expected InvalidFactException for " + facts);
+        } catch (InvalidFactException e) {
+            // expected
+        }
+    }
+}
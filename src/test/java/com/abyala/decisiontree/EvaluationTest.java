@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.engine.BytecodeCompiler;
+import com.abyala.decisiontree.engine.ProgramCompiler;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class EvaluationTest extends AbstractReferencesTreeTest {
+
+    @Test
+    public void testOutcomes() throws InvalidFactException {
+        validateOutcomes();
+    }
+
+    @Test
+    public void testOutcomesWithProgramEngine() throws InvalidFactException {
+        tree.compile(new ProgramCompiler());
+        validateOutcomes();
+    }
+
+    @Test
+    public void testOutcomesWithBytecodeEngine() throws InvalidFactException {
+        tree.compile(new BytecodeCompiler());
+        validateOutcomes();
+    }
+
+    @Test
+    public void testReusedEvaluation() {
+        final Evaluation evaluation = new Evaluation();
+        assertThat(evaluation.getStatus(), nullValue());
+
+        assertThat(tree.tryResolve(createFacts("b", 5), evaluation), equalTo(Evaluation.Status.MATCHED));
+        assertThat(evaluation.getLeaf().getId(), equalTo(2));
+
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("letter", "b");
+        assertThat(tree.tryResolve(facts, evaluation), equalTo(Evaluation.Status.MISSING_FACT));
+        assertThat(evaluation.getFieldName(), equalTo("range"));
+        assertThat(evaluation.getLeaf(), nullValue());
+    }
+
+    @Test
+    public void testExceptionsAreStackless() {
+        try {
+            tree.evaluate(new SimpleDecisionTreeFacts());
+            fail("Expected MissingFactException");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+            assertThat(e.getStackTrace().length, equalTo(0));
+            assertThat(e.getMessage(), equalTo("Required fact not provided: letter"));
+        }
+        try {
+            tree.evaluate(createFacts("z", 0));
+            fail("Expected NoMappingDeclaredException");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(NoMappingDeclaredException.class));
+            assertThat(e.getStackTrace().length, equalTo(0));
+        }
+    }
+
+    private void validateOutcomes() throws InvalidFactException {
+        final Evaluation matched = tree.tryEvaluate(createFacts("b_ref", 6));
+        assertThat(matched.getStatus(), equalTo(Evaluation.Status.MATCHED));
+        assertThat(matched.isMatched(), equalTo(true));
+        assertThat(((SimpleStringResult) matched.getResult()).getValue(), equalTo("LetterB-5"));
+
+        final Evaluation missing = tree.tryEvaluate(new SimpleDecisionTreeFacts());
+        assertThat(missing.getStatus(), equalTo(Evaluation.Status.MISSING_FACT));
+        assertThat(missing.getFieldName(), equalTo("letter"));
+        assertThat(missing.toException(), instanceOf(MissingFactException.class));
+
+        final Evaluation unmapped = tree.tryEvaluate(createFacts("z", 0));
+        assertThat(unmapped.getStatus(), equalTo(Evaluation.Status.NO_MAPPING));
+        assertThat(unmapped.getFieldName(), equalTo("letter"));
+        assertThat((String) unmapped.getFieldValue(), equalTo("z"));
+        try {
+            unmapped.getResult();
+            fail("Expected NoMappingDeclaredException");
+        } catch (NoMappingDeclaredException e) {
+            assertThat(e.getFieldName(), equalTo("letter"));
+        }
+
+        final SimpleDecisionTreeFacts wrongType = new SimpleDecisionTreeFacts();
+        wrongType.put("letter", 5);
+        final Evaluation invalid = tree.tryEvaluate(wrongType);
+        assertThat(invalid.getStatus(), equalTo(Evaluation.Status.INVALID_FACT));
+        assertThat(invalid.getFieldName(), equalTo("letter"));
+    }
+}
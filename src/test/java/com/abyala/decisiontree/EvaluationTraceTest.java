@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.engine.BytecodeCompiler;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import com.abyala.decisiontree.nodes.ResultNode;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class EvaluationTraceTest extends AbstractReferencesTreeTest {
+
+    @Test
+    public void testTraceRecordsPath() throws InvalidFactException {
+        tree.compile(new BytecodeCompiler());
+        final EvaluationTrace trace = new EvaluationTrace();
+        final ResultNode leaf = tree.trace(createFacts("b_ref", 6), trace);
+
+        assertThat(leaf.getId(), equalTo(2));
+        assertThat(trace.getLeaf(), sameInstance(leaf));
+        assertThat(trace.getStepCount(), equalTo(2));
+        assertThat(trace.getInputName(0), equalTo("letter"));
+        assertThat((String) trace.getFactValue(0), equalTo("b_ref"));
+        assertThat((String) trace.getBranch(0), equalTo("b_ref"));
+        assertThat(trace.getInputName(1), equalTo("range"));
+        assertThat((Integer) trace.getFactValue(1), equalTo(6));
+        assertThat((Integer) trace.getBranch(1), equalTo(5));
+        assertThat(trace.getSelected(1), sameInstance((Object) leaf));
+        assertThat(trace.explain(), equalTo("letter = b_ref -> matched b_ref\nrange = 6 -> matched 5\nresult #2 {value=LetterB-5}\n"));
+    }
+
+    @Test
+    public void testTraceIsReused() throws InvalidFactException {
+        final EvaluationTrace trace = new EvaluationTrace(1);
+        tree.trace(createFacts("b", 10), trace);
+        assertThat(trace.getStepCount(), equalTo(2));
+
+        tree.trace(createFacts("a", 10), trace);
+        assertThat(trace.getStepCount(), equalTo(1));
+        assertThat((String) trace.getBranch(0), equalTo("a"));
+        assertThat(trace.getLeaf().getId(), equalTo(0));
+    }
+
+    @Test
+    public void testTraceRecordsFailingStep() {
+        final EvaluationTrace trace = new EvaluationTrace();
+        try {
+            tree.trace(createFacts("z", 0), trace);
+            fail("Expected NoMappingDeclaredException");
+        } catch (InvalidFactException e) {
+            assertThat(e instanceof NoMappingDeclaredException, equalTo(true));
+        }
+        assertThat(trace.getStepCount(), equalTo(1));
+        assertThat((String) trace.getFactValue(0), equalTo("z"));
+        assertThat(trace.getSelected(0), nullValue());
+        assertThat(trace.getLeaf(), nullValue());
+        assertThat(trace.getStatus(0), equalTo(Evaluation.Status.NO_MAPPING));
+        assertThat(trace.explain(), equalTo("letter = z -> no mapping\n"));
+    }
+
+    @Test
+    public void testTraceRecordsMissingFact() {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("letter", "b");
+        final EvaluationTrace trace = new EvaluationTrace();
+        try {
+            tree.trace(facts, trace);
+            fail("Expected MissingFactException");
+        } catch (InvalidFactException e) {
+            assertThat(e instanceof MissingFactException, equalTo(true));
+        }
+        assertThat(trace.getStepCount(), equalTo(2));
+        assertThat(trace.getStatus(0), equalTo(Evaluation.Status.MATCHED));
+        assertThat(trace.getStatus(1), equalTo(Evaluation.Status.MISSING_FACT));
+        assertThat(trace.explain(), equalTo("letter = b -> matched b\nrange = null -> missing fact\n"));
+    }
+
+    @Test
+    public void testTraceRecordsInvalidFact() {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("letter", "b");
+        facts.put("range", "five");
+        final EvaluationTrace trace = new EvaluationTrace();
+        try {
+            tree.trace(facts, trace);
+            fail("Expected InvalidFactException");
+        } catch (InvalidFactException e) {
+            assertThat(trace.getFailure(), sameInstance(e));
+        }
+        assertThat(trace.getStatus(1), equalTo(Evaluation.Status.INVALID_FACT));
+        assertThat(trace.explain(), equalTo("letter = b -> matched b\nrange = five -> invalid fact\n"));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class FactBatchTest extends AbstractDecisionTreeTest {
+    private static final String[] CHANNELS = {"Aa", "BB", "web", "unknown"};
+
+    @Override
+    protected String getFileLocation() {
+        return "src" + File.separator + "test" + File.separator + "resources" + File.separator + "testMixedTypes.xml";
+    }
+
+    @Test
+    public void testBatchMatchesSingleEvaluation() throws InvalidFactException {
+        final FactBatch batch = randomBatch(1000);
+        validateResults(batch, tree.evaluateBatch(batch));
+    }
+
+    @Test
+    public void testParallelBatch() throws InvalidFactException {
+        final FactBatch batch = randomBatch(1000);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            validateResults(batch, tree.evaluateBatch(batch, executor, 1));
+            validateResults(batch, tree.evaluateBatch(batch, executor, 77));
+            validateResults(batch, tree.evaluateBatch(batch, executor, 5000));
+            validateResults(batch, tree.evaluateBatchInParallel(batch));
+            assertThat(tree.resolveBatch(batch, executor, 100).length, equalTo(1000));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelBatchErrors() {
+        final String[] channels = new String[500];
+        Arrays.fill(channels, "BB");
+        channels[321] = null;
+        final FactBatch batch = new FactBatch(tree.getSchema(), channels.length).setStrings("channel", channels);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            tree.evaluateBatch(batch, executor, 50);
+            fail("Should have rejected a null channel");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+            assertThat(e.getFieldName(), equalTo("channel"));
+        } finally {
+            executor.shutdown();
+        }
+
+        try {
+            tree.evaluateBatch(batch, executor, 0);
+            fail("Should have rejected a chunk size of zero");
+        } catch (IllegalArgumentException e) {
+            // expected
+        } catch (InvalidFactException e) {
+            fail("Should have checked the chunk size first");
+        }
+    }
+
+    @Test
+    public void testParallelBatchFromInsideForkJoinPool() throws Exception {
+        final FactBatch batch = randomBatch(1000);
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            // A single worker that blocked on its own chunks would never run them
+            final Object[] results = pool.submit(new Callable<Object[]>() {
+                @Override
+                public Object[] call() throws InvalidFactException {
+                    return tree.evaluateBatch(batch, pool, 64);
+                }
+            }).get(30, TimeUnit.SECONDS);
+            validateResults(batch, results);
+            validateResults(batch, tree.evaluateBatch(batch, pool, 64));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testForkJoinBatchErrors() {
+        final String[] channels = new String[500];
+        Arrays.fill(channels, "BB");
+        channels[321] = null;
+        final FactBatch batch = new FactBatch(tree.getSchema(), channels.length).setStrings("channel", channels);
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            tree.evaluateBatch(batch, pool, 50);
+            fail("Should have rejected a null channel");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private FactBatch randomBatch(final int size) {
+        final String[] channels = new String[size];
+        final BitSet members = new BitSet();
+        final int[] amounts = new int[size];
+        final Random random = new Random(42);
+        for (int row = 0; row < size; row++) {
+            channels[row] = CHANNELS[random.nextInt(CHANNELS.length)];
+            members.set(row, random.nextBoolean());
+            amounts[row] = random.nextInt(2000);
+        }
+
+        return new FactBatch(tree.getSchema(), size)
+                .setStrings("channel", channels)
+                .setBooleans("member", members)
+                .setInts("amount", amounts);
+    }
+
+    private void validateResults(final FactBatch batch, final Object[] results) throws InvalidFactException {
+        assertThat(results.length, equalTo(batch.size()));
+        for (int row = 0; row < batch.size(); row++) {
+            final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+            facts.put("channel", (String) batch.get("channel", row));
+            facts.put("member", (Boolean) batch.get("member", row));
+            facts.put("amount", (Integer) batch.get("amount", row));
+            final SimpleStringResult expected = (SimpleStringResult) tree.evaluate(facts);
+            assertThat(((SimpleStringResult) results[row]).getValue(), equalTo(expected.getValue()));
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() throws InvalidFactException {
+        assertThat(tree.evaluateBatch(new FactBatch(tree.getSchema(), 0)).length, equalTo(0));
+    }
+
+    @Test
+    public void testUnusedColumnsMayBeOmitted() throws InvalidFactException {
+        final FactBatch batch = new FactBatch(tree.getSchema(), 2).setStrings("channel", new String[]{"BB", "Aa"});
+        final Object[] results = tree.evaluateBatch(batch);
+        assertThat(((SimpleStringResult) results[0]).getValue(), equalTo("BB"));
+        assertThat(((SimpleStringResult) results[1]).getValue(), equalTo("Aa"));
+    }
+
+    @Test
+    public void testErrors() {
+        try {
+            tree.evaluateBatch(new FactBatch(tree.getSchema(), 2).setStrings("channel", new String[]{"Aa", "web"}));
+            fail("Should have rejected a batch without a member column");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+            assertThat(e.getFieldName(), equalTo("member"));
+        }
+
+        try {
+            tree.evaluateBatch(new FactBatch(tree.getSchema(), 2).setStrings("channel", new String[]{"Aa", null}));
+            fail("Should have rejected a null channel");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+            assertThat(e.getFieldName(), equalTo("channel"));
+        }
+
+        try {
+            tree.evaluateBatch(new FactBatch(tree.getSchema(), 1)
+                    .setStrings("channel", new String[]{"web"})
+                    .setBooleans("member", allSet(1))
+                    .setInts("amount", new int[]{-5}));
+            fail("Should have rejected an amount below every threshold");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(NoMappingDeclaredException.class));
+            assertThat(e.getFieldName(), equalTo("amount"));
+            assertThat((Integer) e.getFieldValue(), equalTo(-5));
+        }
+    }
+
+    private BitSet allSet(final int size) {
+        final BitSet bits = new BitSet();
+        bits.set(0, size);
+        return bits;
+    }
+
+    @Test
+    public void testInvalidColumns() throws DecisionTreeParserException, InvalidFactException {
+        final FactBatch batch = new FactBatch(tree.getSchema(), 2);
+        try {
+            batch.setInts("channel", new int[2]);
+            fail("Should have rejected an integer column for a string input");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            batch.setInts("amount", new int[1]);
+            fail("Should have rejected a short column");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            parseDecisionTreeAtFileLocation(getFileLocation()).evaluateBatch(batch);
+            fail("Should have rejected a batch from another tree");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
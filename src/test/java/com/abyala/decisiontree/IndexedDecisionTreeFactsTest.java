@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.engine.BytecodeCompiler;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactDataypeException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class IndexedDecisionTreeFactsTest extends AbstractDecisionTreeTest {
+
+    @Override
+    protected String getFileLocation() {
+        return "src" + File.separator + "test" + File.separator + "resources" + File.separator + "testMixedTypes.xml";
+    }
+
+    @Test
+    public void testSlotsFollowDeclarationOrder() {
+        final InputSchema schema = tree.getSchema();
+        assertThat(schema.size(), equalTo(3));
+        assertThat(schema.getSlot("channel"), equalTo(0));
+        assertThat(schema.getSlot("member"), equalTo(1));
+        assertThat(schema.getSlot("amount"), equalTo(2));
+        assertThat(schema.getSlot("unknown"), equalTo(-1));
+        assertThat(schema.getType(1).getName(), equalTo("member"));
+    }
+
+    @Test
+    public void testEvaluate() throws InvalidFactException {
+        final InputSchema schema = tree.getSchema();
+        final IndexedDecisionTreeFacts facts = schema.newFacts();
+        facts.setString(schema.getSlot("channel"), "web");
+        facts.setBoolean(schema.getSlot("member"), true);
+        facts.setInt(schema.getSlot("amount"), 75);
+        validateResult(facts, "member-50");
+
+        facts.setBoolean(schema.getSlot("member"), false);
+        validateResult(facts, "guest");
+
+        facts.clear();
+        facts.put("channel", "Aa");
+        validateResult(facts, "Aa");
+
+        facts.put("channel", "unknown");
+        facts.put("amount", 2000);
+        validateResult(facts, "other-large");
+    }
+
+    @Test
+    public void testEvaluateCompiled() throws InvalidFactException {
+        tree.compile(new BytecodeCompiler());
+        final IndexedDecisionTreeFacts facts = tree.getSchema().newFacts();
+        facts.put("channel", "web");
+        facts.put("member", true);
+        facts.put("amount", 500);
+        validateResult(facts, "member-500");
+    }
+
+    @Test
+    public void testErrors() {
+        final IndexedDecisionTreeFacts facts = tree.getSchema().newFacts();
+        facts.put("channel", "web");
+        try {
+            tree.evaluate(facts);
+            fail("Should have rejected a missing member");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+            assertThat(e.getFieldName(), equalTo("member"));
+        }
+
+        facts.put("member", "true");
+        try {
+            tree.evaluate(facts);
+            fail("Should have rejected a string member");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(InvalidFactDataypeException.class));
+            assertThat(e.getFieldName(), equalTo("member"));
+        }
+
+        try {
+            facts.put("unknown", "value");
+            fail("Should have rejected an undeclared input");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testForeignSchemaReadsByName() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree other = parseDecisionTreeAtFileLocation(getFileLocation());
+        final IndexedDecisionTreeFacts facts = other.getSchema().newFacts();
+        facts.put("channel", "BB");
+        validateResult(facts, "BB");
+    }
+
+    private void validateResult(final DecisionTreeFacts facts, final String expected) throws InvalidFactException {
+        final SimpleStringResult result = (SimpleStringResult) tree.evaluate(facts);
+        assertThat(result.getValue(), equalTo(expected));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.engine.BytecodeCompiler;
+import com.abyala.decisiontree.engine.ProgramCompiler;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.nodes.ResultNode;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class LeafIdTest extends AbstractReferencesTreeTest {
+
+    @Test
+    public void testLeavesNumberedInDocumentOrder() {
+        assertThat(tree.getLeafCount(), equalTo(3));
+        assertThat((String) tree.getLeaf(0).getValue("value"), equalTo("LetterA"));
+        assertThat((String) tree.getLeaf(1).getValue("value"), equalTo("LetterB-0"));
+        assertThat((String) tree.getLeaf(2).getValue("value"), equalTo("LetterB-5"));
+        for (int id = 0; id < tree.getLeafCount(); id++) {
+            assertThat(tree.getLeaf(id).getId(), equalTo(id));
+        }
+    }
+
+    @Test
+    public void testLeafIdOutOfRange() {
+        for (int id : new int[]{-1, 3}) {
+            try {
+                tree.getLeaf(id);
+                fail("Should have rejected leaf ID " + id);
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(), equalTo("Leaf ID " + id + " is out of range 0 to 2"));
+            }
+        }
+    }
+
+    @Test
+    public void testReferencesShareLeafIds() throws InvalidFactException {
+        assertThat(tree.evaluateLeafId(createFacts("a", 0)), equalTo(0));
+        assertThat(tree.evaluateLeafId(createFacts("a_ref", 0)), equalTo(0));
+        assertThat(tree.evaluateLeafId(createFacts("b", 0)), equalTo(1));
+        assertThat(tree.evaluateLeafId(createFacts("b", 10)), equalTo(1));
+        assertThat(tree.evaluateLeafId(createFacts("b_ref", 6)), equalTo(2));
+    }
+
+    @Test
+    public void testLeafIdsMatchResults() throws InvalidFactException {
+        validateLeafIds();
+        tree.compile(new ProgramCompiler());
+        validateLeafIds();
+        tree.compile(new BytecodeCompiler());
+        validateLeafIds();
+    }
+
+    private void validateLeafIds() throws InvalidFactException {
+        final Set<Integer> seen = new HashSet<Integer>();
+        for (String letter : new String[]{"a", "a_ref", "b", "b_ref"}) {
+            for (int range = 0; range <= 10; range++) {
+                final IndexedDecisionTreeFacts facts = tree.getSchema().newFacts();
+                facts.put("letter", letter);
+                facts.put("range", range);
+                final int id = tree.evaluateLeafId(facts);
+                final ResultNode leaf = tree.getLeaf(id);
+                final SimpleStringResult result = (SimpleStringResult) tree.evaluate(facts);
+                assertThat((String) leaf.getValue("value"), equalTo(result.getValue()));
+                seen.add(id);
+            }
+        }
+        assertThat(seen.size(), equalTo(tree.getLeafCount()));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree;
+
+import com.abyala.decisiontree.exceptions.InvalidFactDataypeException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class SimpleDecisionTreeFactsTest {
+
+    @Test
+    public void testPrimitiveAccessors() throws InvalidFactException {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("count", 1000);
+        facts.put("flag", true);
+        facts.put("name", "value");
+
+        assertThat(facts.getIntValue("count"), is(1000));
+        assertThat(facts.getBooleanValue("flag"), is(true));
+        assertThat(facts.hasFact("count"), is(true));
+        assertThat(facts.hasFact("name"), is(true));
+        assertThat(facts.hasFact("missing"), is(false));
+
+        facts.put("name", (String) null);
+        assertThat(facts.hasFact("name"), is(false));
+    }
+
+    @Test
+    public void testPrimitiveAccessorErrors() {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("name", "value");
+        assertInvalid(facts, "missing", MissingFactException.class);
+        assertInvalid(facts, "name", InvalidFactDataypeException.class);
+    }
+
+    @Test
+    public void testDefaultAccessors() throws InvalidFactException {
+        final Map<String, Object> values = new HashMap<String, Object>();
+        values.put("count", 7);
+        values.put("flag", false);
+        values.put("name", "value");
+        final DecisionTreeFacts facts = new AbstractDecisionTreeFacts() {
+            @Override
+            public Object get(final String key) {
+                return values.get(key);
+            }
+        };
+
+        assertThat(facts.getIntValue("count"), is(7));
+        assertThat(facts.getBooleanValue("flag"), is(false));
+        assertThat(facts.hasFact("name"), is(true));
+        assertThat(facts.hasFact("missing"), is(false));
+        assertInvalid(facts, "missing", MissingFactException.class);
+        assertInvalid(facts, "name", InvalidFactDataypeException.class);
+    }
+
+    private void assertInvalid(final DecisionTreeFacts facts, final String key, final Class<? extends InvalidFactException> expected) {
+        try {
+            facts.getIntValue(key);
+            fail("Should have rejected " + key + " as an integer");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(expected));
+            assertThat(e.getFieldName(), equalTo(key));
+        }
+
+        try {
+            facts.getBooleanValue(key);
+            fail("Should have rejected " + key + " as a boolean");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(expected));
+            assertThat(e.getFieldName(), equalTo(key));
+        }
+    }
+}
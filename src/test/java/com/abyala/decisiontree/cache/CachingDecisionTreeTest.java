@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.cache;
+
+import com.abyala.decisiontree.AbstractReferencesTreeTest;
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.SimpleDecisionTreeFacts;
+import com.abyala.decisiontree.SimpleStringResult;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class CachingDecisionTreeTest extends AbstractReferencesTreeTest {
+
+    @Test
+    public void testKeyCoversOnlyConsultedInputs() throws InvalidFactException {
+        final CachingDecisionTree cache = new CachingDecisionTree.Builder(tree).build();
+
+        assertThat(result(cache, createFacts("a", 0)), equalTo("LetterA"));
+        assertThat(result(cache, createFacts("a", 7)), equalTo("LetterA"));
+        assertThat(result(cache, createFacts("a", 9)), equalTo("LetterA"));
+        assertThat(cache.getStats().getMissCount(), equalTo(1L));
+        assertThat(cache.getStats().getHitCount(), equalTo(2L));
+
+        final SimpleDecisionTreeFacts letterOnly = new SimpleDecisionTreeFacts();
+        letterOnly.put("letter", "a");
+        assertThat(result(cache, letterOnly), equalTo("LetterA"));
+        assertThat(cache.getStats().getHitCount(), equalTo(3L));
+        assertThat(cache.size(), equalTo(1));
+    }
+
+    @Test
+    public void testMatchesTree() throws InvalidFactException {
+        final CachingDecisionTree cache = new CachingDecisionTree.Builder(tree).build();
+        for (int pass = 0; pass < 2; pass++) {
+            for (String letter : new String[]{"a", "a_ref", "b", "b_ref"}) {
+                for (int range = 0; range <= 10; range++) {
+                    final DecisionTreeFacts facts = createFacts(letter, range);
+                    assertThat(cache.evaluateLeafId(facts), equalTo(tree.evaluateLeafId(facts)));
+                }
+            }
+        }
+        assertThat(cache.size(), equalTo(2 + 2 * 11));
+        assertThat(cache.getStats().getMissCount(), equalTo(24L));
+        assertThat(cache.getStats().getHitCount(), equalTo(2 * 4 * 11 - 24L));
+    }
+
+    @Test
+    public void testBoundedSizeKeepsFrequentEntries() throws InvalidFactException {
+        final CachingDecisionTree cache = new CachingDecisionTree.Builder(tree).setMaximumSize(4).setSampleSize(64).build();
+        for (int i = 0; i < 100; i++) {
+            cache.resolve(createFacts("a", 0));
+        }
+        for (int range = 0; range <= 10; range++) {
+            cache.resolve(createFacts("b", range));
+            assertThat(cache.size() <= 4, equalTo(true));
+        }
+        final long misses = cache.getStats().getMissCount();
+        assertThat(result(cache, createFacts("a", 0)), equalTo("LetterA"));
+        assertThat(cache.getStats().getMissCount(), equalTo(misses));
+        assertThat(cache.getStats().getEvictionCount(), equalTo(8L));
+    }
+
+    @Test
+    public void testLoadingCachedPathDoesNotEvict() throws InvalidFactException {
+        final CachingDecisionTree cache = new CachingDecisionTree.Builder(tree).setMaximumSize(1).build();
+        cache.resolve(createFacts("a", 0));
+
+        // Another thread that missed on the same facts stores the path again
+        assertThat(cache.load(createFacts("a", 0)).getId(), equalTo(tree.evaluateLeafId(createFacts("a", 0))));
+        assertThat(cache.getStats().getEvictionCount(), equalTo(0L));
+        assertThat(cache.size(), equalTo(1));
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws InvalidFactException {
+        final CachingDecisionTree cache = new CachingDecisionTree.Builder(tree).build();
+        try {
+            cache.resolve(createFacts("z", 0));
+            fail("Expected NoMappingDeclaredException");
+        } catch (NoMappingDeclaredException e) {
+            assertThat(e.getFieldName(), equalTo("letter"));
+        }
+        final SimpleDecisionTreeFacts letterOnly = new SimpleDecisionTreeFacts();
+        letterOnly.put("letter", "b");
+        try {
+            cache.resolve(letterOnly);
+            fail("Expected MissingFactException");
+        } catch (MissingFactException e) {
+            assertThat(e.getFieldName(), equalTo("range"));
+        }
+        assertThat(cache.size(), equalTo(0));
+
+        cache.clear();
+        assertThat(cache.size(), equalTo(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaximumSize() {
+        new CachingDecisionTree.Builder(tree).setMaximumSize(0).build();
+    }
+
+    private String result(final CachingDecisionTree cache, final DecisionTreeFacts facts) throws InvalidFactException {
+        return ((SimpleStringResult) cache.evaluate(facts)).getValue();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.*;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public abstract class AbstractEngineTest extends AbstractReferencesTreeTest {
+
+    protected abstract EngineCompiler createCompiler();
+
+    @Test
+    public void testReferences() throws InvalidFactException {
+        tree.compile(createCompiler());
+        validateResult(tree, createFacts("a", null), "LetterA");
+        validateResult(tree, createFacts("a_ref", null), "LetterA");
+        validateResult(tree, createFacts("b", 0), "LetterB-0");
+        validateResult(tree, createFacts("b", 5), "LetterB-5");
+        validateResult(tree, createFacts("b", 10), "LetterB-0");
+        validateResult(tree, createFacts("b_ref", 4), "LetterB-0");
+        validateResult(tree, createFacts("b_ref", 7), "LetterB-5");
+    }
+
+    @Test
+    public void testErrors() {
+        tree.compile(createCompiler());
+        try {
+            tree.evaluate(createFacts("invalid", null));
+            fail("Should have rejected a letter with no mapping");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(NoMappingDeclaredException.class));
+            assertThat(e.getFieldName(), equalTo("letter"));
+            assertThat((String) e.getFieldValue(), equalTo("invalid"));
+        }
+
+        try {
+            tree.evaluate(createFacts("b", -1));
+            fail("Should have rejected a range below every threshold");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(NoMappingDeclaredException.class));
+            assertThat(e.getFieldName(), equalTo("range"));
+            assertThat((Integer) e.getFieldValue(), equalTo(-1));
+        }
+
+        try {
+            tree.evaluate(createFacts("b", null));
+            fail("Should have rejected a missing range");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+            assertThat(e.getFieldName(), equalTo("range"));
+        }
+    }
+
+    @Test
+    public void testMissingFactsArePreallocated() {
+        validateMissingFactsPreallocated();
+        tree.compile(createCompiler());
+        validateMissingFactsPreallocated();
+    }
+
+    protected void validateMissingFactsPreallocated() {
+        assertThat(missingFact(createFacts("b", null)), sameInstance(missingFact(createFacts("b", null))));
+        assertThat(missingFact(createFacts(null, 5)), sameInstance(missingFact(createFacts(null, 5))));
+    }
+
+    private InvalidFactException missingFact(final DecisionTreeFacts facts) {
+        try {
+            tree.evaluate(facts);
+            fail("Should have rejected missing facts " + facts);
+            return null;
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+            return e;
+        }
+    }
+
+    @Test
+    public void testTryResolve() throws InvalidFactException {
+        tree.compile(createCompiler());
+        final Evaluation evaluation = tryResolve(createFacts("b_ref", 7));
+        assertThat(evaluation.getStatus(), equalTo(Evaluation.Status.MATCHED));
+        assertThat(((SimpleStringResult) evaluation.getResult()).getValue(), equalTo("LetterB-5"));
+
+        assertThat(tryResolve(createFacts("invalid", null)).getStatus(), equalTo(Evaluation.Status.NO_MAPPING));
+        assertThat((String) tryResolve(createFacts("invalid", null)).getFieldValue(), equalTo("invalid"));
+        assertThat(tryResolve(createFacts("b", -1)).getFieldName(), equalTo("range"));
+        assertThat((Integer) tryResolve(createFacts("b", -1)).getFieldValue(), equalTo(-1));
+
+        final Evaluation missing = tryResolve(createFacts("b", null));
+        assertThat(missing.getStatus(), equalTo(Evaluation.Status.MISSING_FACT));
+        assertThat(missing.getFieldName(), equalTo("range"));
+        assertThat(tryResolve(new SimpleDecisionTreeFacts()).getFieldName(), equalTo("letter"));
+
+        final SimpleDecisionTreeFacts wrongType = createFacts("b", null);
+        wrongType.put("range", "five");
+        final Evaluation invalid = tryResolve(wrongType);
+        assertThat(invalid.getStatus(), equalTo(Evaluation.Status.INVALID_FACT));
+        assertThat(invalid.getFieldName(), equalTo("range"));
+    }
+
+    @Test
+    public void testIntegerRanges() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree rangeTree = parseDecisionTreeAtFileLocation(resource("testIntegerRanges.xml")).compile(createCompiler());
+        validateResult(rangeTree, createFacts(null, Integer.MIN_VALUE), "negativeNumber");
+        validateResult(rangeTree, createFacts(null, -1), "negativeNumber");
+        validateResult(rangeTree, createFacts(null, 0), "zero");
+        validateResult(rangeTree, createFacts(null, 999), "positiveNumber");
+        validateResult(rangeTree, createFacts(null, 1000), "largePositiveNumber");
+        validateResult(rangeTree, createFacts(null, Integer.MAX_VALUE), "largePositiveNumber");
+    }
+
+    @Test
+    public void testDefaultInputValue() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree defaultTree = parseDecisionTreeAtFileLocation(resource("testDefaultInputValue.xml")).compile(createCompiler());
+        validateResult(defaultTree, createFacts("a", null), "LetterA");
+        validateResult(defaultTree, createFacts("c", null), "LetterC");
+        validateResult(defaultTree, createFacts("d", null), "LetterB");
+    }
+
+    @Test
+    public void testMixedTypes() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree mixedTree = parseDecisionTreeAtFileLocation(resource("testMixedTypes.xml")).compile(createCompiler());
+        validateResult(mixedTree, mixedFacts("Aa", null, null), "Aa");
+        validateResult(mixedTree, mixedFacts("BB", null, null), "BB");
+        validateResult(mixedTree, mixedFacts("web", false, null), "guest");
+        validateResult(mixedTree, mixedFacts("web", true, 0), "member-0");
+        validateResult(mixedTree, mixedFacts("web", true, 9), "member-0");
+        validateResult(mixedTree, mixedFacts("web", true, 10), "member-10");
+        validateResult(mixedTree, mixedFacts("web", true, 49), "member-20");
+        validateResult(mixedTree, mixedFacts("web", true, 50), "member-50");
+        validateResult(mixedTree, mixedFacts("web", true, 199), "member-100");
+        validateResult(mixedTree, mixedFacts("web", true, 200), "member-200");
+        validateResult(mixedTree, mixedFacts("web", true, 499), "member-200");
+        validateResult(mixedTree, mixedFacts("web", true, Integer.MAX_VALUE), "member-500");
+        validateResult(mixedTree, mixedFacts("other", null, 999), "other-small");
+        validateResult(mixedTree, mixedFacts("fnord", null, 1000), "other-large");
+
+        try {
+            mixedTree.evaluate(mixedFacts("web", true, -1));
+            fail("Should have rejected an amount below the minimum");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(NoMappingDeclaredException.class));
+            assertThat(e.getFieldName(), equalTo("amount"));
+        }
+
+        try {
+            mixedTree.evaluate(mixedFacts("web", null, 10));
+            fail("Should have rejected a missing member fact");
+        } catch (InvalidFactException e) {
+            assertThat(e, instanceOf(MissingFactException.class));
+            assertThat(e.getFieldName(), equalTo("member"));
+        }
+    }
+
+    private DecisionTreeFacts mixedFacts(final String channel, final Boolean member, final Integer amount) {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("channel", channel);
+        if (member != null) {
+            facts.put("member", member);
+        }
+        if (amount != null) {
+            facts.put("amount", amount);
+        }
+        return facts;
+    }
+
+    private static String resource(final String name) {
+        return "src" + File.separator + "test" + File.separator + "resources" + File.separator + name;
+    }
+
+    private void validateResult(final DecisionTree decisionTree, final DecisionTreeFacts facts, final String expected) throws InvalidFactException {
+        final SimpleStringResult result = (SimpleStringResult) decisionTree.evaluate(facts);
+        assertThat(result.getValue(), equalTo(expected));
+    }
+
+    private Evaluation tryResolve(final DecisionTreeFacts facts) {
+        final Evaluation evaluation = new Evaluation();
+        tree.getEngine().tryResolve(facts, evaluation);
+        return evaluation;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.IndexedDecisionTreeFacts;
+import com.abyala.decisiontree.InputSchema;
+import com.abyala.decisiontree.SimpleStringResult;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class BytecodeCompilerTest extends AbstractEngineTest {
+
+    @Override
+    protected EngineCompiler createCompiler() {
+        return new BytecodeCompiler();
+    }
+
+    @Test
+    public void testCompile() {
+        tree.compile(createCompiler());
+        final Engine engine = tree.getEngine();
+        assertThat(engine, not(instanceOf(ProgramEngine.class)));
+        assertThat(engine.getClass().getClassLoader(), not(sameInstance(Engine.class.getClassLoader())));
+
+        tree.compile(createCompiler());
+        assertThat(tree.getEngine().getClass(), not(sameInstance((Object) engine.getClass())));
+    }
+
+    @Test
+    public void testGeneratesTryResolve() throws NoSuchMethodException {
+        tree.compile(createCompiler());
+        final Method tryResolve = tree.getEngine().getClass().getMethod("tryResolve", DecisionTreeFacts.class, Evaluation.class);
+        assertThat(tryResolve.isDefault(), equalTo(false));
+        assertThat(tryResolve.getDeclaringClass(), sameInstance((Object) tree.getEngine().getClass()));
+    }
+
+    @Test
+    public void testReadsIndexedFactsBySlot() throws DecisionTreeParserException, InvalidFactException {
+        tree.compile(createCompiler());
+        final InputSchema schema = tree.getSchema();
+        final IndexedDecisionTreeFacts facts = new SlotOnlyFacts(schema);
+        facts.put("letter", "b_ref");
+        facts.put("range", 7);
+        assertThat(((SimpleStringResult) tree.evaluate(facts)).getValue(), equalTo("LetterB-5"));
+
+        facts.remove(schema.getSlot("range"));
+        try {
+            tree.evaluate(facts);
+            fail("Should have rejected a missing range");
+        } catch (MissingFactException e) {
+            assertThat(e, sameInstance(schema.getMissingFact(schema.getSlot("range"))));
+        }
+
+        final Evaluation evaluation = new Evaluation();
+        tree.getEngine().tryResolve(facts, evaluation);
+        assertThat(evaluation.getStatus(), equalTo(Evaluation.Status.MISSING_FACT));
+        assertThat(evaluation.getFieldName(), equalTo("range"));
+    }
+
+    @Test
+    public void testReadsOtherSchemasByName() throws DecisionTreeParserException, InvalidFactException {
+        tree.compile(createCompiler());
+        // Another tree's schema holds different inputs at the same slots, so they must not be read by slot
+        final InputSchema otherSchema = parseDecisionTreeAtFileLocation(REFERENCES_FILE).getSchema();
+        final IndexedDecisionTreeFacts facts = otherSchema.newFacts();
+        facts.put("letter", "b");
+        facts.put("range", 5);
+        assertThat(((SimpleStringResult) tree.evaluate(facts)).getValue(), equalTo("LetterB-5"));
+
+        try {
+            tree.evaluate(new SlotOnlyFacts(otherSchema));
+            fail("Should have read the facts by name");
+        } catch (AssertionError e) {
+            assertThat(e.getMessage(), containsString("by name"));
+        }
+    }
+
+    /**
+     * Facts that fail if the engine reads them by name.
+     */
+    private static class SlotOnlyFacts extends IndexedDecisionTreeFacts {
+        SlotOnlyFacts(final InputSchema schema) {
+            super(schema);
+        }
+
+        @Override
+        public boolean hasFact(final String key) {
+            throw new AssertionError("Read " + key + " by name");
+        }
+
+        @Override
+        public String getString(final String key) {
+            throw new AssertionError("Read " + key + " by name");
+        }
+
+        @Override
+        public int getIntValue(final String key, final MissingFactException missing) {
+            throw new AssertionError("Read " + key + " by name");
+        }
+
+        @Override
+        public boolean getBooleanValue(final String key, final MissingFactException missing) {
+            throw new AssertionError("Read " + key + " by name");
+        }
+    }
+}
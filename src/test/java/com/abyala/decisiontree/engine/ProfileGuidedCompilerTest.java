@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.SimpleDecisionTreeFacts;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
+import com.abyala.decisiontree.metrics.InstrumentedEngine;
+import com.abyala.decisiontree.nodes.BooleanNode;
+import com.abyala.decisiontree.nodes.IntegerNode;
+import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.StringNode;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ProfileGuidedCompilerTest extends AbstractEngineTest {
+
+    @Override
+    protected EngineCompiler createCompiler() {
+        return new ProfileGuidedCompiler(new DecisionTreeMetrics(0));
+    }
+
+    @Test
+    public void testHotBranchesCheckedFirst() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree mixedTree = parseMixedTypes();
+        final DecisionTreeMetrics profile = mixedTree.enableMetrics();
+        for (int i = 0; i < 90; i++) {
+            mixedTree.evaluate(mixedFacts("web", true, 250));
+        }
+        for (int i = 0; i < 9; i++) {
+            mixedTree.evaluate(mixedFacts("web", true, 15));
+        }
+        mixedTree.evaluate(mixedFacts("web", true, 60));
+        mixedTree.evaluate(mixedFacts("Aa", true, 60));
+        mixedTree.disableMetrics();
+
+        mixedTree.compile(new ProfileGuidedCompiler(profile));
+        final Node root = ((NodeEngine) mixedTree.getEngine()).getRootNode();
+        assertThat(root, not(sameInstance(mixedTree.getRootNode())));
+        final StringNode channel = (StringNode) root;
+        assertThat(channel.getHotKeys(), equalTo(Arrays.asList("web")));
+
+        final IntegerNode amount = (IntegerNode) ((BooleanNode) channel.getChildren().get("web")).getTrueValue();
+        assertThat(amount.getHotThresholds()[0], equalTo(200));
+        assertThat(amount.getHotThresholds()[1], equalTo(10));
+        assertThat(amount.getHotThresholds().length, equalTo(2));
+    }
+
+    @Test
+    public void testOptimizedTreeMatchesOriginal() throws DecisionTreeParserException, InvalidFactException {
+        assertOptimizedTreeMatchesOriginal(new NodeCompiler());
+    }
+
+    @Test
+    public void testOptimizedBytecodeMatchesOriginal() throws DecisionTreeParserException, InvalidFactException {
+        assertOptimizedTreeMatchesOriginal(new BytecodeCompiler());
+    }
+
+    @Test
+    public void testOptimizedProgramMatchesOriginal() throws DecisionTreeParserException, InvalidFactException {
+        assertOptimizedTreeMatchesOriginal(new ProgramCompiler());
+    }
+
+    @Test
+    public void testDelegateCompilesOptimizedNodes() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree mixedTree = parseMixedTypes();
+        final DecisionTreeMetrics profile = mixedTree.enableMetrics();
+        mixedTree.evaluate(mixedFacts("web", true, 250));
+        mixedTree.disableMetrics();
+
+        mixedTree.compile(new ProfileGuidedCompiler(profile, new ProgramCompiler()));
+        assertThat(mixedTree.getEngine(), instanceOf(ProgramEngine.class));
+        assertThat(mixedTree.evaluateLeafId(mixedFacts("web", true, 250)), equalTo(parseMixedTypes().evaluateLeafId(mixedFacts("web", true, 250))));
+    }
+
+    @Test
+    public void testOptimizeKeepsCurrentCompiler() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree mixedTree = parseMixedTypes();
+        mixedTree.compile(new ProgramCompiler());
+        final DecisionTreeMetrics profile = mixedTree.enableMetrics();
+        mixedTree.evaluate(mixedFacts("web", true, 250));
+
+        mixedTree.optimize(profile);
+        assertThat(((InstrumentedEngine) mixedTree.getEngine()).getDelegate(), instanceOf(ProgramEngine.class));
+        mixedTree.optimize(profile);
+        assertThat(((ProfileGuidedCompiler) mixedTree.getCompiler()).getDelegate(), instanceOf(ProgramCompiler.class));
+
+        mixedTree.disableMetrics();
+        assertThat(mixedTree.getEngine(), instanceOf(ProgramEngine.class));
+        assertThat(mixedTree.evaluateLeafId(mixedFacts("web", true, 250)), equalTo(parseMixedTypes().evaluateLeafId(mixedFacts("web", true, 250))));
+    }
+
+    @Test
+    public void testUncompiledTreeOptimizesToInterpreter() throws DecisionTreeParserException {
+        final DecisionTree mixedTree = parseMixedTypes();
+        mixedTree.optimize(new DecisionTreeMetrics(0));
+        assertThat(mixedTree.getEngine(), instanceOf(NodeEngine.class));
+        assertThat(((ProfileGuidedCompiler) mixedTree.getCompiler()).getDelegate(), instanceOf(NodeCompiler.class));
+    }
+
+    private void assertOptimizedTreeMatchesOriginal(final EngineCompiler delegate) throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree original = parseMixedTypes();
+        final DecisionTree optimized = parseMixedTypes();
+        final DecisionTreeMetrics profile = optimized.enableMetrics();
+        for (int amount = 0; amount < 600; amount += 7) {
+            optimized.evaluate(mixedFacts("web", true, amount % 3 == 0 ? 250 : amount));
+        }
+        optimized.disableMetrics();
+        optimized.compile(new ProfileGuidedCompiler(profile, delegate));
+
+        for (String channel : new String[]{"Aa", "BB", "web", "other", "fnord"}) {
+            for (int amount = 0; amount < 1200; amount++) {
+                final SimpleDecisionTreeFacts facts = mixedFacts(channel, amount % 2 == 0, amount);
+                assertThat(optimized.evaluateLeafId(facts), equalTo(original.evaluateLeafId(facts)));
+            }
+        }
+    }
+
+    private DecisionTree parseMixedTypes() throws DecisionTreeParserException {
+        return parseDecisionTreeAtFileLocation("src" + File.separator + "test" + File.separator + "resources" + File.separator + "testMixedTypes.xml");
+    }
+
+    private SimpleDecisionTreeFacts mixedFacts(final String channel, final boolean member, final int amount) {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("channel", channel);
+        facts.put("member", member);
+        facts.put("amount", amount);
+        return facts;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.engine;
+
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.SimpleStringResult;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.metrics.DecisionTreeMetrics;
+import com.abyala.decisiontree.metrics.InstrumentedEngine;
+import com.abyala.decisiontree.nodes.Node;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class TieredCompilerTest extends AbstractEngineTest {
+    private static final Executor SAME_THREAD = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Override
+    protected EngineCompiler createCompiler() {
+        return new TieredCompiler(new BytecodeCompiler(), 3, SAME_THREAD);
+    }
+
+    @Test
+    public void testPromotesAfterThreshold() throws InvalidFactException {
+        tree.compile(new TieredCompiler(new ProgramCompiler(), 5, SAME_THREAD));
+        final TieredEngine engine = (TieredEngine) tree.getEngine();
+        for (int i = 0; i < 4; i++) {
+            assertThat(evaluate(createFacts("b", 5)), equalTo("LetterB-5"));
+        }
+        assertThat(engine.isPromoted(), equalTo(false));
+        assertThat(engine.getEvaluationCount(), equalTo(4L));
+
+        assertThat(evaluate(createFacts("b", 5)), equalTo("LetterB-5"));
+        assertThat(engine.isPromoted(), equalTo(true));
+        assertThat(engine.getCompiledEngine(), instanceOf(ProgramEngine.class));
+
+        assertThat(evaluate(createFacts("a_ref", 0)), equalTo("LetterA"));
+        assertThat(engine.getEvaluationCount(), equalTo(5L));
+    }
+
+    @Test
+    public void testPromotesAfterLargeThreshold() throws InvalidFactException {
+        tree.compile(new TieredCompiler(new ProgramCompiler(), 6400, SAME_THREAD));
+        final TieredEngine engine = (TieredEngine) tree.getEngine();
+        for (int i = 0; i < 6399; i++) {
+            evaluate(createFacts("b", 5));
+        }
+        assertThat(engine.isPromoted(), equalTo(false));
+
+        // The threshold is only checked on a sampled evaluation, so allow for overshoot
+        int extra = 1;
+        evaluate(createFacts("b", 5));
+        while (!engine.isPromoted() && extra < 64 * 40) {
+            evaluate(createFacts("b", 5));
+            extra++;
+        }
+        assertThat(engine.isPromoted(), equalTo(true));
+        assertThat(engine.getEvaluationCount(), equalTo(6399L + extra));
+    }
+
+    /**
+     * Promotion swaps the interpreter's exceptions for the compiled engine's, so promote before comparing.
+     */
+    @Override
+    @Test
+    public void testMissingFactsArePreallocated() {
+        validateMissingFactsPreallocated();
+        tree.compile(createCompiler());
+        ((TieredEngine) tree.getEngine()).promote();
+        validateMissingFactsPreallocated();
+    }
+
+    @Test
+    public void testPromotesWithMetrics() throws InvalidFactException {
+        tree.compile(new TieredCompiler(new ProgramCompiler(), 3, SAME_THREAD));
+        final TieredEngine engine = (TieredEngine) tree.getEngine();
+        final DecisionTreeMetrics metrics = tree.enableMetrics();
+        for (int i = 0; i < 3; i++) {
+            assertThat(evaluate(createFacts("b", 5)), equalTo("LetterB-5"));
+        }
+        assertThat(engine.isPromoted(), equalTo(true));
+        assertThat(((InstrumentedEngine) tree.getEngine()).getDelegate(), sameInstance((Engine) engine));
+
+        assertThat(evaluate(createFacts("a", 0)), equalTo("LetterA"));
+        assertThat(engine.getEvaluationCount(), equalTo(3L));
+        assertThat(metrics.getEvaluationCount(), equalTo(4L));
+    }
+
+    @Test
+    public void testRejectedPromotionCompilesInline() throws InvalidFactException {
+        final Executor rejecting = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                throw new RejectedExecutionException("Shut down");
+            }
+        };
+        tree.compile(new TieredCompiler(new ProgramCompiler(), 1, rejecting));
+        final TieredEngine engine = (TieredEngine) tree.getEngine();
+        assertThat(evaluate(createFacts("b", 5)), equalTo("LetterB-5"));
+        assertThat(engine.isPromoted(), equalTo(true));
+        assertThat(engine.getPromotionFailure(), nullValue());
+    }
+
+    @Test
+    public void testPromotesInBackground() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            tree.compile(new TieredCompiler(new BytecodeCompiler(), 1, executor));
+            final TieredEngine engine = (TieredEngine) tree.getEngine();
+            assertThat(evaluate(createFacts("b", 5)), equalTo("LetterB-5"));
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), equalTo(true));
+            assertThat(engine.isPromoted(), equalTo(true));
+            assertThat(evaluate(createFacts("b_ref", 0)), equalTo("LetterB-0"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedCompilationStaysInterpreted() throws InvalidFactException {
+        final EngineCompiler failing = new EngineCompiler() {
+            @Override
+            public Engine compile(final Node rootNode) {
+                throw new IllegalStateException("Cannot compile");
+            }
+        };
+        tree.compile(new TieredCompiler(failing, 1, SAME_THREAD));
+        final TieredEngine engine = (TieredEngine) tree.getEngine();
+        assertThat(evaluate(createFacts("b", 5)), equalTo("LetterB-5"));
+        assertThat(engine.isPromoted(), equalTo(false));
+        assertThat(engine.getPromotionFailure(), instanceOf(IllegalStateException.class));
+        assertThat(engine.promote(), equalTo(false));
+        assertThat(evaluate(createFacts("a", 0)), equalTo("LetterA"));
+    }
+
+    @Test
+    public void testPromoteNow() {
+        tree.compile(new TieredCompiler(new BytecodeCompiler()));
+        final TieredEngine engine = (TieredEngine) tree.getEngine();
+        assertThat(engine.getCompiledEngine(), nullValue());
+        assertThat(engine.promote(), equalTo(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreshold() {
+        new TieredCompiler(new BytecodeCompiler(), 0);
+    }
+
+    private String evaluate(final DecisionTreeFacts facts) throws InvalidFactException {
+        return ((SimpleStringResult) tree.evaluate(facts)).getValue();
+    }
+}
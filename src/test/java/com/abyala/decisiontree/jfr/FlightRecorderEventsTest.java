@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.jfr;
+
+import com.abyala.decisiontree.AbstractReferencesTreeTest;
+import com.abyala.decisiontree.SimpleDecisionTreeFacts;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class FlightRecorderEventsTest extends AbstractReferencesTreeTest {
+
+    @Test
+    public void testParseAndEvaluationEvents() throws Exception {
+        final List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+        final Recording recording = new Recording();
+        recording.enable(ParseEvent.class);
+        recording.enable(EvaluationEvent.class);
+        recording.start();
+        try {
+            tree = parseDecisionTreeAtFileLocation(REFERENCES_FILE);
+            tree.evaluate(createFacts("b", 5));
+            tree.setEventSampleInterval(1);
+            tree.evaluate(createFacts("b_ref", 5));
+            expectFailure(createFacts("z", 0));
+
+            final SimpleDecisionTreeFacts wrongType = createFacts("b", 0);
+            wrongType.put("range", "five");
+            expectFailure(wrongType);
+
+            final SimpleDecisionTreeFacts broken = new SimpleDecisionTreeFacts() {
+                @Override
+                public String getString(final String key) {
+                    throw new IllegalStateException("Broken facts");
+                }
+            };
+            broken.put("letter", "b");
+            try {
+                tree.evaluate(broken);
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        } finally {
+            recording.stop();
+            events.addAll(readEvents(recording));
+            recording.close();
+        }
+
+        final List<RecordedEvent> parses = eventsNamed(events, "com.abyala.decisiontree.Parse");
+        assertThat(parses.size(), equalTo(1));
+        assertThat(parses.get(0).getLong("treeId"), equalTo(tree.getId()));
+        assertThat(parses.get(0).getInt("leafCount"), equalTo(3));
+        assertThat(parses.get(0).getLong("xmlLoadDuration") > 0, equalTo(true));
+
+        final List<RecordedEvent> evaluations = eventsNamed(events, "com.abyala.decisiontree.Evaluation");
+        assertThat(evaluations.size(), equalTo(4));
+        assertThat(evaluations.get(0).getLong("treeId"), equalTo(tree.getId()));
+        assertThat(evaluations.get(0).getString("outcome"), equalTo("MATCHED"));
+        assertThat(evaluations.get(0).getInt("depth"), equalTo(2));
+        assertThat(evaluations.get(0).getInt("leafId"), equalTo(2));
+        assertThat(evaluations.get(1).getString("outcome"), equalTo("NO_MAPPING"));
+        assertThat(evaluations.get(1).getInt("depth"), equalTo(1));
+        assertThat(evaluations.get(1).getInt("leafId"), equalTo(-1));
+        assertThat(evaluations.get(2).getString("outcome"), equalTo("INVALID_FACT"));
+        assertThat(evaluations.get(3).getString("outcome"), equalTo("ERROR"));
+        assertThat(evaluations.get(3).getInt("depth"), equalTo(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSampleInterval() throws Exception {
+        tree.setEventSampleInterval(-1);
+    }
+
+    private List<RecordedEvent> readEvents(final Recording recording) throws IOException {
+        final File file = File.createTempFile("decision-tree", ".jfr");
+        try {
+            recording.dump(file.toPath());
+            return RecordingFile.readAllEvents(file.toPath());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private List<RecordedEvent> eventsNamed(final List<RecordedEvent> events, final String name) {
+        final List<RecordedEvent> result = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+}
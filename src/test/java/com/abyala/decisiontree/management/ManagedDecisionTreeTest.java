@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.management;
+
+import com.abyala.decisiontree.AbstractReferencesTreeTest;
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.engine.BytecodeCompiler;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ManagedDecisionTreeTest extends AbstractReferencesTreeTest {
+
+    @Test
+    public void testShape() {
+        final ManagedDecisionTree managed = new ManagedDecisionTree("references", tree);
+        assertThat(managed.getNodeCount(), equalTo(2));
+        assertThat(managed.getLeafCount(), equalTo(3));
+        assertThat(managed.getDepth(), equalTo(2));
+        assertThat(managed.getEstimatedRetainedBytes() > 0, equalTo(true));
+    }
+
+    @Test
+    public void testAttributesThroughServer() throws Exception {
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final ManagedDecisionTree managed = new ManagedDecisionTree("references", tree);
+        final ObjectName name = managed.register(server);
+        assertThat(name.getKeyProperty("type"), equalTo("DecisionTree"));
+
+        assertThat((Integer) server.getAttribute(name, "NodeCount"), equalTo(2));
+        assertThat((Boolean) server.getAttribute(name, "MetricsEnabled"), equalTo(false));
+        assertThat((Long) server.getAttribute(name, "EvaluationCount"), equalTo(0L));
+
+        managed.setMetricsEnabled(true);
+        tree.evaluate(createFacts("a", 0));
+        tree.evaluate(createFacts("b", 5));
+        expectFailure(createFacts("z", 0));
+        assertThat((Long) server.getAttribute(name, "EvaluationCount"), equalTo(3L));
+        assertThat((Long) server.getAttribute(name, "MissCount"), equalTo(1L));
+        assertThat((Double) server.getAttribute(name, "MissRate"), equalTo(1.0 / 3));
+        assertThat((Long) server.getAttribute(name, "LatencyP99Nanos") > 0, equalTo(true));
+
+        server.invoke(name, "resetStatistics", new Object[0], new String[0]);
+        assertThat(managed.getEvaluationCount(), equalTo(0L));
+
+        managed.unregister();
+        assertThat(server.isRegistered(name), equalTo(false));
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        final DecisionTree replacement = parseDecisionTreeAtFileLocation(getFileLocation()).compile(new BytecodeCompiler());
+        final ManagedDecisionTree managed = new ManagedDecisionTree("references", tree, new Callable<DecisionTree>() {
+            @Override
+            public DecisionTree call() {
+                return replacement;
+            }
+        });
+        managed.setMetricsEnabled(true);
+        tree.evaluate(createFacts("a", 0));
+
+        managed.reload();
+        assertThat(managed.getTree(), sameInstance(replacement));
+        assertThat(managed.isMetricsEnabled(), equalTo(true));
+        assertThat(managed.getEvaluationCount(), equalTo(0L));
+        assertThat(managed.getEngineName(), not(equalTo(tree.getEngine().getClass().getName())));
+    }
+
+    @Test
+    public void testFailedReload() {
+        final ManagedDecisionTree managed = new ManagedDecisionTree("references", tree, new Callable<DecisionTree>() {
+            @Override
+            public DecisionTree call() throws Exception {
+                throw new DecisionTreeParserException("Bad tree file");
+            }
+        });
+        try {
+            managed.reload();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("Bad tree file"));
+            assertThat(e.getCause(), nullValue());
+        }
+        assertThat(managed.getTree(), sameInstance(tree));
+    }
+
+    @Test
+    public void testEvaluationRateIsWindowed() throws InvalidFactException {
+        final ManagedDecisionTree managed = new ManagedDecisionTree("references", tree);
+        managed.setMetricsEnabled(true);
+        final long start = 1000L;
+        final long second = TimeUnit.SECONDS.toNanos(1);
+        managed.resetRate(start);
+        for (int i = 0; i < 3; i++) {
+            tree.evaluate(createFacts("a", 0));
+        }
+        assertThat(managed.getEvaluationRate(start + second), equalTo(3.0));
+        assertThat(managed.getEvaluationRate(start + 60 * second), equalTo(3.0 / 60));
+
+        // The evaluations of the first minute drop out once the next window has passed
+        for (int i = 0; i < 6; i++) {
+            tree.evaluate(createFacts("a", 0));
+        }
+        assertThat(managed.getEvaluationRate(start + 90 * second), equalTo(9.0 / 90));
+        assertThat(managed.getEvaluationRate(start + 121 * second), equalTo(6.0 / 61));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReloadWithoutLoader() throws Exception {
+        new ManagedDecisionTree("references", tree).reload();
+    }
+}
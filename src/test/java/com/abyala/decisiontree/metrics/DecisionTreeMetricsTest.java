@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.metrics;
+
+import com.abyala.decisiontree.AbstractReferencesTreeTest;
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
+import com.abyala.decisiontree.SimpleDecisionTreeFacts;
+import com.abyala.decisiontree.engine.BytecodeCompiler;
+import com.abyala.decisiontree.engine.Engine;
+import com.abyala.decisiontree.engine.EngineCompiler;
+import com.abyala.decisiontree.engine.NodeEngine;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.nodes.Node;
+import com.abyala.decisiontree.nodes.ResultNode;
+import com.abyala.decisiontree.nodes.StringNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class DecisionTreeMetricsTest extends AbstractReferencesTreeTest {
+
+    @Test
+    public void testCountsBranchesAndLeaves() throws InvalidFactException {
+        final DecisionTreeMetrics metrics = tree.enableMetrics();
+        tree.evaluate(createFacts("a", 0));
+        tree.evaluate(createFacts("b", 3));
+        tree.evaluate(createFacts("b_ref", 7));
+        tree.evaluate(createFacts("b_ref", 10));
+
+        final Node root = tree.getRootNode();
+        final DecisionTreeMetrics.NodeCounters rootCounters = metrics.getNodeCounters(root);
+        assertThat(rootCounters.getBranchCount("a"), equalTo(1L));
+        assertThat(rootCounters.getBranchCount("b"), equalTo(1L));
+        assertThat(rootCounters.getBranchCount("b_ref"), equalTo(2L));
+        assertThat(rootCounters.getBranchCount("a_ref"), equalTo(0L));
+
+        final Node range = (Node) ((StringNode) root).getChildren().get("b");
+        final DecisionTreeMetrics.NodeCounters rangeCounters = metrics.getNodeCounters(range);
+        assertThat(rangeCounters.getBranchCount(0), equalTo(1L));
+        assertThat(rangeCounters.getBranchCount(5), equalTo(1L));
+        assertThat(rangeCounters.getBranchCount(10), equalTo(1L));
+
+        assertThat(metrics.getLeafCount(tree.getLeaf(0)), equalTo(1L));
+        assertThat(metrics.getLeafCount(tree.getLeaf(1)), equalTo(2L));
+        assertThat(metrics.getLeafCount(tree.getLeaf(2)), equalTo(1L));
+        assertThat(metrics.getEvaluationCount(), equalTo(4L));
+        assertThat(metrics.getLatencies().getCount(), equalTo(4L));
+    }
+
+    @Test
+    public void testCountsFailures() {
+        final DecisionTreeMetrics metrics = tree.enableMetrics();
+        expectFailure(createFacts("z", 0));
+        expectFailure(new SimpleDecisionTreeFacts());
+        final SimpleDecisionTreeFacts wrongType = new SimpleDecisionTreeFacts();
+        wrongType.put("letter", 5);
+        expectFailure(wrongType);
+
+        assertThat(metrics.getNoMappingCount(), equalTo(1L));
+        assertThat(metrics.getMissingFactCount(), equalTo(1L));
+        assertThat(metrics.getInvalidFactCount(), equalTo(1L));
+        assertThat(metrics.getNodeCounters(tree.getRootNode()).getNoMappingCount(), equalTo(1L));
+        assertThat(metrics.getEvaluationCount(), equalTo(3L));
+    }
+
+    @Test
+    public void testEnableAndDisable() throws InvalidFactException {
+        assertThat(tree.getMetrics(), nullValue());
+        final DecisionTreeMetrics metrics = tree.enableMetrics();
+        assertThat(tree.enableMetrics(), sameInstance(metrics));
+
+        tree.compile(new BytecodeCompiler());
+        assertThat(tree.getMetrics(), sameInstance(metrics));
+        tree.evaluate(createFacts("a", 0));
+        assertThat(metrics.getEvaluationCount(), equalTo(1L));
+
+        tree.disableMetrics();
+        assertThat(tree.getMetrics(), nullValue());
+        assertThat(tree.getEngine() instanceof InstrumentedEngine, equalTo(false));
+        tree.evaluate(createFacts("a", 0));
+        assertThat(metrics.getEvaluationCount(), equalTo(1L));
+    }
+
+    @Test
+    public void testDisableRestoresEngine() {
+        tree.enableMetrics();
+        tree.disableMetrics();
+        assertThat(tree.getEngine(), instanceOf(NodeEngine.class));
+    }
+
+    @Test
+    public void testConcurrentCounting() throws Exception {
+        final DecisionTreeMetrics metrics = tree.enableMetrics();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws InvalidFactException {
+                        final DecisionTreeFacts facts = createFacts("b", 5);
+                        for (int i = 0; i < 1000; i++) {
+                            tree.evaluate(facts);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(metrics.getLeafCount(tree.getLeaf(2)), equalTo(8000L));
+        assertThat(metrics.getNodeCounters(tree.getRootNode()).getBranchCount("b"), equalTo(8000L));
+        assertThat(metrics.getEvaluationCount(), equalTo(8000L));
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getValueAtPercentile(50), equalTo(0L));
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+        assertThat(histogram.getCount(), equalTo(100L));
+        assertThat(histogram.getValueAtPercentile(50), equalTo(103L));
+        assertThat(histogram.getValueAtPercentile(99), equalTo(103L));
+        assertThat(histogram.getValueAtPercentile(100), equalTo(5119L));
+        assertThat(histogram.getMean(), equalTo(149.0));
+
+        histogram.reset();
+        assertThat(histogram.getCount(), equalTo(0L));
+    }
+
+    @Test
+    public void testLatencyBucketsCoverEveryValue() {
+        long previousUpperBound = -1;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+            final long upperBound = LatencyHistogram.getBucketUpperBound(bucket);
+            assertThat(LatencyHistogram.bucketOf(previousUpperBound + 1), equalTo(bucket));
+            assertThat(LatencyHistogram.bucketOf(upperBound), equalTo(bucket));
+            assertThat(upperBound - previousUpperBound <= Math.max(1, (previousUpperBound + 1) / 8), equalTo(true));
+            previousUpperBound = upperBound;
+        }
+        assertThat(previousUpperBound, equalTo(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testEvaluatesThroughCompiledEngine() throws InvalidFactException {
+        final AtomicInteger calls = new AtomicInteger();
+        tree.compile(new EngineCompiler() {
+            @Override
+            public Engine compile(final Node rootNode) {
+                final Engine nodes = new NodeEngine(rootNode);
+                return new Engine() {
+                    @Override
+                    public ResultNode resolve(final DecisionTreeFacts facts) throws InvalidFactException {
+                        calls.incrementAndGet();
+                        return nodes.resolve(facts);
+                    }
+                };
+            }
+        });
+        final DecisionTreeMetrics metrics = tree.enableMetrics();
+
+        tree.evaluate(createFacts("b", 5));
+        final Evaluation evaluation = tree.tryEvaluate(createFacts("z", 0));
+        assertThat(evaluation.getStatus(), equalTo(Evaluation.Status.NO_MAPPING));
+        assertThat(metrics.getLeafCount(tree.getLeaf(2)), equalTo(1L));
+        assertThat(metrics.getNoMappingCount(), equalTo(1L));
+        assertThat(metrics.getEvaluationCount(), equalTo(2L));
+        assertThat(metrics.getNodeCounters(tree.getRootNode()).getBranchCount("b"), equalTo(1L));
+        assertThat(calls.get(), equalTo(2));
+    }
+
+    @Test
+    public void testBranchCountingCanBeTurnedOff() throws InvalidFactException {
+        final DecisionTreeMetrics metrics = tree.enableMetrics(0);
+        tree.evaluate(createFacts("b", 5));
+        expectFailure(createFacts("z", 0));
+
+        assertThat(metrics.getNodeCounters().isEmpty(), equalTo(true));
+        assertThat(metrics.getLeafCount(tree.getLeaf(2)), equalTo(1L));
+        assertThat(metrics.getNoMappingCount(), equalTo(1L));
+        assertThat(metrics.getEvaluationCount(), equalTo(2L));
+    }
+}
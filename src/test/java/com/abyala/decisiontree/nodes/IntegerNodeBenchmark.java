@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.nodes;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the threshold searches available to IntegerNode across node sizes, to locate the point where the
+ * Eytzinger binary search overtakes the branchless linear scan (IntegerNode.LINEAR_SEARCH_LIMIT), and where
+ * it overtakes the blocked batch scan (IntegerNode.BATCH_SCAN_LIMIT).
+ * Not a unit test; run it directly:
+ * <pre>
+ *   java -cp build/classes/test:build/classes/main com.abyala.decisiontree.nodes.IntegerNodeBenchmark
+ * </pre>
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class IntegerNodeBenchmark {
+    private static final int[] SIZES = {2, 4, 8, 16, 24, 32, 48, 64, 128, 256, 1024, 4096};
+    private static final int KEYS = 1 << 16;
+    private static final int ROUNDS = 20;
+
+    public static void main(final String[] args) {
+        final Random random = new Random(42);
+        System.out.println(String.format("%8s %12s %12s %12s %12s", "size", "linear ns", "layout ns", "binary ns", "batch ns"));
+
+        for (int size : SIZES) {
+            final int[] thresholds = randomThresholds(random, size);
+            final int[] layout = new int[size + 1];
+            final int[] layoutIndexes = new int[size + 1];
+            IntegerNode.buildLayout(thresholds, layout, layoutIndexes);
+
+            final int[] keys = new int[KEYS];
+            for (int i = 0; i < KEYS; i++) {
+                keys[i] = random.nextInt(size * 16);
+            }
+
+            final int[] indexes = new int[1024];
+            long linear = Long.MAX_VALUE, eytzinger = Long.MAX_VALUE, binary = Long.MAX_VALUE, batch = Long.MAX_VALUE;
+            long linearSum = 0, eytzingerSum = 0, binarySum = 0, batchSum = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int key : keys) {
+                    linearSum += IntegerNode.linearIndexOf(thresholds, key);
+                }
+                linear = Math.min(linear, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (int key : keys) {
+                    eytzingerSum += IntegerNode.layoutIndexOf(layout, layoutIndexes, key);
+                }
+                eytzinger = Math.min(eytzinger, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (int key : keys) {
+                    final int found = Arrays.binarySearch(thresholds, key);
+                    binarySum += found >= 0 ? found : -found - 2;
+                }
+                binary = Math.min(binary, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (int offset = 0; offset < KEYS; offset += indexes.length) {
+                    final int[] block = Arrays.copyOfRange(keys, offset, offset + indexes.length);
+                    IntegerNode.batchIndexOf(thresholds, block, indexes, indexes.length);
+                    for (int index : indexes) {
+                        batchSum += index;
+                    }
+                }
+                batch = Math.min(batch, System.nanoTime() - start);
+            }
+
+            if (linearSum != eytzingerSum || linearSum != binarySum || linearSum != batchSum) {
+                throw new IllegalStateException("Searches disagree for size " + size);
+            }
+            System.out.println(String.format("%8d %12.2f %12.2f %12.2f %12.2f", size, (double) linear / KEYS, (double) eytzinger / KEYS, (double) binary / KEYS, (double) batch / KEYS));
+        }
+    }
+
+    private static int[] randomThresholds(final Random random, final int size) {
+        final int[] thresholds = new int[size];
+        int value = 0;
+        for (int i = 0; i < size; i++) {
+            value += 1 + random.nextInt(30);
+            thresholds[i] = value;
+        }
+        return thresholds;
+    }
+}
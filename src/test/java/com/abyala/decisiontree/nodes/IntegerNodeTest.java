@@ -19,19 +19,28 @@
 
 package com.abyala.decisiontree.nodes;
 
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.Evaluation;
 import com.abyala.decisiontree.SimpleDecisionTreeFacts;
 import com.abyala.decisiontree.SimpleStringResult;
 import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
 import com.abyala.decisiontree.exceptions.InvalidFactDataypeException;
 import com.abyala.decisiontree.exceptions.InvalidFactException;
 import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.NoMappingDeclaredException;
 import com.abyala.decisiontree.types.InputType;
 import com.abyala.decisiontree.types.IntegerInputType;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
@@ -308,6 +317,105 @@ public class IntegerNodeTest extends AbstractNodeTest {
         assertTwoIntegerFacts(node, 1, 100, "child-non-negative");
     }
 
+    @Test
+    public void testEvaluate_manyThresholds() throws DecisionTreeParserException, InvalidFactException {
+        final int count = IntegerNode.LINEAR_SEARCH_LIMIT * 4;
+        final IntegerNode.Builder builder = new IntegerNode.Builder(NON_NEGATIVE_TYPE);
+        for (int i = 0; i < count; i++) {
+            builder.addResultMapping(String.valueOf(i * 10), simpleAttribute("band-" + i));
+        }
+        final IntegerNode node = builder.build();
+        node.validate();
+
+        for (int value = 0; value < count * 10 + 20; value += 3) {
+            final String expected = "band-" + Math.min(value / 10, count - 1);
+            assertThat(((SimpleStringResult) node.evaluate(singleIntegerFact("range", value))).getValue(), equalTo(expected));
+        }
+        assertThat(((SimpleStringResult) node.evaluate(singleIntegerFact("range", Integer.MAX_VALUE))).getValue(), equalTo("band-" + (count - 1)));
+        assertThat(node.indexOf(-1), equalTo(-1));
+        assertThat(node.indexOf(Integer.MIN_VALUE), equalTo(-1));
+    }
+
+    @Test
+    public void testEvaluate_denseTable() throws DecisionTreeParserException, InvalidFactException {
+        final IntegerNode.Builder builder = new IntegerNode.Builder(TEN_TO_TWENTY_TYPE);
+        builder.addResultMapping("10", simpleAttribute("low"));
+        builder.addResultMapping("15", simpleAttribute("middle"));
+        builder.addResultMapping("20", simpleAttribute("high"));
+        final IntegerNode node = builder.build();
+        node.validate();
+        assertThat(node.hasDenseTable(), equalTo(true));
+
+        for (int value = 10; value <= 14; value++) {
+            assertThat(((SimpleStringResult) node.evaluate(singleIntegerFact("range", value))).getValue(), equalTo("low"));
+        }
+        for (int value = 15; value <= 19; value++) {
+            assertThat(((SimpleStringResult) node.evaluate(singleIntegerFact("range", value))).getValue(), equalTo("middle"));
+        }
+        assertThat(((SimpleStringResult) node.evaluate(singleIntegerFact("range", 20))).getValue(), equalTo("high"));
+
+        // Values outside the declared domain fall back to the search
+        assertThat(((SimpleStringResult) node.evaluate(singleIntegerFact("range", 21))).getValue(), equalTo("high"));
+        assertThat(((SimpleStringResult) node.evaluate(singleIntegerFact("range", Integer.MAX_VALUE))).getValue(), equalTo("high"));
+        try {
+            node.evaluate(singleIntegerFact("range", Integer.MIN_VALUE));
+            fail("Should not map a value below the lowest threshold");
+        } catch (NoMappingDeclaredException e) {
+            assertThat(e.getFieldName(), equalTo("range"));
+        }
+    }
+
+    @Test
+    public void testDenseTableLimit() throws DecisionTreeParserException {
+        final IntegerNode.Builder builder = new IntegerNode.Builder(TEN_TO_TWENTY_TYPE);
+        builder.addResultMapping("10", simpleAttribute("low"));
+        assertThat(builder.build().hasDenseTable(), equalTo(true));
+        assertThat(builder.setDenseTableLimit(11).build().hasDenseTable(), equalTo(true));
+        assertThat(builder.setDenseTableLimit(10).build().hasDenseTable(), equalTo(false));
+
+        final IntegerNode.Builder unboundedBuilder = new IntegerNode.Builder(ALL_VALUES_TYPE);
+        unboundedBuilder.addResultMapping("unbounded", simpleAttribute("any"));
+        assertThat(unboundedBuilder.setDenseTableLimit(Integer.MAX_VALUE).build().hasDenseTable(), equalTo(false));
+    }
+
+    @Test
+    public void testSearchStrategiesAgree() {
+        final Random random = new Random(7);
+        for (int size = 1; size <= 100; size++) {
+            final int[] thresholds = new int[size];
+            for (int i = 0, value = -500; i < size; i++) {
+                value += 1 + random.nextInt(20);
+                thresholds[i] = value;
+            }
+            final int[] layout = new int[size + 1];
+            final int[] layoutIndexes = new int[size + 1];
+            IntegerNode.buildLayout(thresholds, layout, layoutIndexes);
+
+            for (int key = -600; key < thresholds[size - 1] + 50; key++) {
+                assertThat(IntegerNode.layoutIndexOf(layout, layoutIndexes, key), equalTo(IntegerNode.linearIndexOf(thresholds, key)));
+            }
+        }
+    }
+
+    @Test
+    public void testBatchIndexOf() {
+        final int[] thresholds = {Integer.MIN_VALUE, -1000, 0, 1, 1000, Integer.MAX_VALUE};
+        final int[] keys = {Integer.MIN_VALUE, -1001, -1000, -1, 0, 1, 999, 1000, Integer.MAX_VALUE - 1, Integer.MAX_VALUE, 77};
+        final int[] indexes = new int[keys.length];
+        IntegerNode.batchIndexOf(thresholds, keys, indexes, keys.length - 1);
+        for (int i = 0; i < keys.length - 1; i++) {
+            assertThat(indexes[i], equalTo(IntegerNode.linearIndexOf(thresholds, keys[i])));
+        }
+        assertThat(indexes[keys.length - 1], equalTo(0));
+
+        final int[] positive = {5, 10};
+        IntegerNode.batchIndexOf(positive, new int[]{Integer.MIN_VALUE, 4, 5, Integer.MAX_VALUE}, indexes, 4);
+        assertThat(indexes[0], equalTo(-1));
+        assertThat(indexes[1], equalTo(-1));
+        assertThat(indexes[2], equalTo(0));
+        assertThat(indexes[3], equalTo(1));
+    }
+
     private void assertTwoIntegerFacts(final Node node, final Integer topLevelValue, final Integer childValue, final String expected) throws InvalidFactException {
         final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
         facts.put("topLevel", topLevelValue);
@@ -317,4 +425,41 @@ public class IntegerNodeTest extends AbstractNodeTest {
         final String actual = result.getValue();
         assertThat(actual, equalTo(expected));
     }
+
+    @Test
+    public void testWalkReportsBranchTakenAndFailure() throws DecisionTreeParserException {
+        final IntegerNode.Builder builder = new IntegerNode.Builder(NON_NEGATIVE_TYPE);
+        builder.addResultMapping("0", simpleAttribute("low"));
+        builder.addResultMapping("10", simpleAttribute("high"));
+        final IntegerNode node = builder.build();
+        final List<Object> visits = new ArrayList<Object>();
+        final NodeVisitor visitor = new NodeVisitor() {
+            @Override
+            public void visitBranch(final AbstractNode node, final DecisionTreeFacts facts, final int branch) {
+                visits.add(node.getBranchKey(branch));
+            }
+
+            @Override
+            public void visitLeaf(final ResultNode leaf) {
+                visits.add(leaf);
+            }
+
+            @Override
+            public void visitFailure(final AbstractNode node, final DecisionTreeFacts facts, final Evaluation.Status status, final InvalidFactException error) {
+                visits.add(status);
+            }
+        };
+
+        final ResultNode leaf = node.walk(singleIntegerFact("range", 12), visitor);
+        assertThat(leaf, sameInstance(node.getChild(1)));
+        assertThat(visits, equalTo(Arrays.<Object>asList(10, leaf)));
+
+        visits.clear();
+        assertThat(node.walk(singleIntegerFact("range", -1), visitor), nullValue());
+        assertThat(visits, equalTo(Arrays.<Object>asList(Evaluation.Status.NO_MAPPING)));
+
+        visits.clear();
+        assertThat(node.walk(new SimpleDecisionTreeFacts(), visitor), nullValue());
+        assertThat(visits, equalTo(Arrays.<Object>asList(Evaluation.Status.MISSING_FACT)));
+    }
 }
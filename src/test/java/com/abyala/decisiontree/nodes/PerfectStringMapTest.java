@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.nodes;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class PerfectStringMapTest {
+
+    @Test
+    public void testEmpty() {
+        final PerfectStringMap map = PerfectStringMap.build(new HashMap<String, Object>(), "missing");
+        assertThat(map.get("anything"), equalTo((Object) "missing"));
+        assertThat(map.get(""), equalTo((Object) "missing"));
+    }
+
+    @Test
+    public void testMissingValueMayBeNull() {
+        final Map<String, Object> entries = new HashMap<String, Object>();
+        entries.put("a", 1);
+        final PerfectStringMap map = PerfectStringMap.build(entries, null);
+        assertThat(map.get("a"), equalTo((Object) 1));
+        assertThat(map.get("b"), nullValue());
+    }
+
+    @Test
+    public void testRandomKeySets() {
+        final Random random = new Random(11);
+        for (int size = 1; size <= 300; size += 7) {
+            final Map<String, Object> entries = new HashMap<String, Object>();
+            while (entries.size() < size) {
+                entries.put(Long.toString(random.nextLong(), 36), entries.size());
+            }
+
+            final PerfectStringMap map = PerfectStringMap.build(entries, "missing");
+            for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                assertThat(map.get(new String(entry.getKey())), equalTo(entry.getValue()));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertThat(map.get("not-" + i), equalTo((Object) "missing"));
+            }
+        }
+    }
+
+    @Test
+    public void testCollidingHashCodes() {
+        // "Aa", "BB" and "C#" all share a hash code
+        final Map<String, Object> entries = new HashMap<String, Object>();
+        entries.put("Aa", 1);
+        entries.put("BB", 2);
+        entries.put("C#", 3);
+        entries.put("AaAa", 4);
+        entries.put("BBBB", 5);
+
+        final PerfectStringMap map = PerfectStringMap.build(entries, "missing");
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            assertThat(map.get(entry.getKey()), equalTo(entry.getValue()));
+        }
+        assertThat(map.get("AaBB"), equalTo((Object) "missing"));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.results;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.ResultField;
+import com.abyala.decisiontree.SimpleDecisionTreeFacts;
+import com.abyala.decisiontree.SimpleDecisionTreeParser;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class CreatorResultTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String ATTRIBUTES = "<text-attribute name=\"label\" default=\"none\"/><integer-attribute name=\"score\" default=\"-1\"/>";
+
+    @Test
+    public void testConstructorCreator() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree tree = parse(ConstructorResult.class, ATTRIBUTES, "");
+        final ConstructorResult first = (ConstructorResult) tree.evaluate(createFacts(true));
+        assertThat(first.label, equalTo("yes"));
+        assertThat(first.score, equalTo(10));
+
+        final ConstructorResult second = (ConstructorResult) tree.evaluate(createFacts(false));
+        assertThat(second.label, equalTo("none"));
+        assertThat(second.score, equalTo(-1));
+        assertThat(tree.evaluate(createFacts(true)), not(sameInstance((Object) first)));
+    }
+
+    @Test
+    public void testFactoryCreator() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree tree = parse(FactoryResult.class, ATTRIBUTES, " immutable=\"true\"");
+        final FactoryResult first = (FactoryResult) tree.evaluate(createFacts(true));
+        assertThat(first.label, equalTo("yes"));
+        assertThat(first.score, equalTo(10));
+        assertThat(tree.evaluate(createFacts(true)), sameInstance((Object) first));
+    }
+
+    @Test
+    public void testRecordCreator() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 16);
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null);
+
+        // The tests compile for JDKs without records, so the record is compiled and loaded here
+        final File sourceFile = new File(folder.getRoot(), "RecordResult.java");
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(sourceFile), "UTF-8");
+        try {
+            writer.write("public record RecordResult(@" + ResultField.class.getName() + "(name = \"score\") int points, String label) {}");
+        } finally {
+            writer.close();
+        }
+        final int status = compiler.run(null, null, null, "-classpath", System.getProperty("java.class.path"),
+                "-d", folder.getRoot().getPath(), sourceFile.getPath());
+        assertThat(status, equalTo(0));
+
+        final URLClassLoader loader = new URLClassLoader(new URL[]{folder.getRoot().toURI().toURL()}, ResultField.class.getClassLoader());
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previousLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            final Class<?> recordClass = loader.loadClass("RecordResult");
+            final String xml = "<decision-tree><input-types><boolean-type name=\"flag\"/></input-types>"
+                    + "<result-type class=\"RecordResult\">" + ATTRIBUTES + "</result-type>"
+                    + "<tree><flag value=\"true\"><result label=\"yes\" score=\"10\"/></flag><flag value=\"false\"><result/></flag></tree></decision-tree>";
+            final DecisionTree tree = new SimpleDecisionTreeParser().parse(new StringReader(xml));
+
+            final Object first = tree.evaluate(createFacts(true));
+            assertThat(first.getClass(), sameInstance((Object) recordClass));
+            assertThat(recordClass.getMethod("label").invoke(first), equalTo((Object) "yes"));
+            assertThat(recordClass.getMethod("points").invoke(first), equalTo((Object) 10));
+
+            final Object second = tree.evaluate(createFacts(false));
+            assertThat(recordClass.getMethod("label").invoke(second), equalTo((Object) "none"));
+            assertThat(recordClass.getMethod("points").invoke(second), equalTo((Object) (-1)));
+        } finally {
+            thread.setContextClassLoader(previousLoader);
+            loader.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEvaluateIntoRequiresSetters() throws DecisionTreeParserException, InvalidFactException {
+        parse(ConstructorResult.class, ATTRIBUTES, "").evaluateInto(createFacts(true), new ConstructorResult(0, null));
+    }
+
+    @Test
+    public void testCreatorMismatches() {
+        assertRejected(ConstructorResult.class, "<text-attribute name=\"label\"/>", "score");
+        assertRejected(ConstructorResult.class, ATTRIBUTES + "<text-attribute name=\"extra\"/>", "extra");
+        assertRejected(TwoCreatorsResult.class, ATTRIBUTES, "more than one");
+        assertRejected(ConstructorResult.class, "<text-attribute name=\"label\"/><text-attribute name=\"score\"/>", "does not match creator parameter type int");
+        assertRejected(FactoryResult.class, "<text-attribute name=\"label\"/><boolean-attribute name=\"score\"/>", "does not match creator parameter type java.lang.Integer");
+    }
+
+    private void assertRejected(final Class resultClass, final String attributes, final String message) {
+        try {
+            parse(resultClass, attributes, "");
+            fail("Should have rejected " + resultClass.getSimpleName() + " with " + attributes);
+        } catch (DecisionTreeParserException e) {
+            assertThat(e.getMessage(), containsString(message));
+        }
+    }
+
+    private DecisionTree parse(final Class resultClass, final String attributes, final String resultTypeOptions) throws DecisionTreeParserException {
+        final String xml = "<decision-tree><input-types><boolean-type name=\"flag\"/></input-types>"
+                + "<result-type class=\"" + resultClass.getName() + "\"" + resultTypeOptions + ">" + attributes + "</result-type>"
+                + "<tree><flag value=\"true\"><result label=\"yes\" score=\"10\"/></flag><flag value=\"false\"><result/></flag></tree></decision-tree>";
+        return new SimpleDecisionTreeParser().parse(new StringReader(xml));
+    }
+
+    private SimpleDecisionTreeFacts createFacts(final boolean flag) {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("flag", flag);
+        return facts;
+    }
+
+    public static class ConstructorResult {
+        private final String label;
+        private final int score;
+
+        public ConstructorResult(@ResultField(name = "score") final int score, @ResultField(name = "label") final String label) {
+            this.label = label;
+            this.score = score;
+        }
+    }
+
+    public static class FactoryResult {
+        private final String label;
+        private final Integer score;
+
+        private FactoryResult(final String label, final Integer score) {
+            this.label = label;
+            this.score = score;
+        }
+
+        public static FactoryResult of(@ResultField(name = "label") final String label, @ResultField(name = "score") final Integer score) {
+            return new FactoryResult(label, score);
+        }
+    }
+
+    public static class TwoCreatorsResult {
+        public TwoCreatorsResult(@ResultField(name = "label") final String label, @ResultField(name = "score") final int score) {
+        }
+
+        public static TwoCreatorsResult of(@ResultField(name = "label") final String label, @ResultField(name = "score") final int score) {
+            return new TwoCreatorsResult(label, score);
+        }
+    }
+}
@@ -67,6 +67,26 @@ public class DefaultResultTest extends AbstractDecisionTreeTest {
         validateResult(facts, "bar", false, "someMemo", -1);
     }
 
+    @Test
+    public void testEvaluateInto() throws InvalidFactException {
+        final DefaultTestResult target = new DefaultTestResult();
+        assertThat(tree.evaluateInto(createFacts("allDefined"), target), sameInstance(target));
+        assertThat(target.getString(), equalTo("foo"));
+        assertThat(target.getMemo(), equalTo("howdy"));
+        assertThat(target.getNum(), equalTo(500));
+
+        tree.evaluateInto(createFacts("twoDefined"), target);
+        assertThat(target.getString(), equalTo("bar"));
+        assertThat(target.getBool(), equalTo(false));
+        assertThat(target.getMemo(), equalTo("someMemo"));
+        assertThat(target.getNum(), equalTo(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEvaluateIntoWrongClass() throws InvalidFactException {
+        tree.evaluateInto(createFacts("allDefined"), new SimpleStringResult());
+    }
+
     private DecisionTreeFacts createFacts(final String input) {
         final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
         facts.put("fooInput", input);
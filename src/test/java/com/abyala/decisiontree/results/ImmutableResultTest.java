@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.results;
+
+import com.abyala.decisiontree.*;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ImmutableResultTest extends AbstractDecisionTreeTest {
+    @Override
+    protected String getFileLocation() {
+        return "src" + File.separator + "test" + File.separator + "resources" + File.separator + "testImmutableResult.xml";
+    }
+
+    @Test
+    public void testSharedResult() throws InvalidFactException {
+        final Object first = tree.evaluate(createFacts("twoDefined"));
+        assertThat(tree.evaluate(createFacts("twoDefined")), sameInstance(first));
+        assertThat(tree.evaluate(createFacts("unknown")), sameInstance(first));
+        assertThat(tree.evaluate(createFacts("allDefined")), not(sameInstance(first)));
+
+        final DefaultTestResult result = (DefaultTestResult) first;
+        assertThat(result.getString(), equalTo("bar"));
+        assertThat(result.getBool(), equalTo(false));
+        assertThat(result.getMemo(), equalTo("someMemo"));
+    }
+
+    @Test
+    public void testMutableResultsAreNotShared() throws DecisionTreeParserException, InvalidFactException {
+        final DecisionTree mutableTree = parseDecisionTreeAtFileLocation("src" + File.separator + "test" + File.separator + "resources" + File.separator + "testDefaultResultValue.xml");
+        assertThat(mutableTree.evaluate(createFacts("twoDefined")), not(sameInstance(mutableTree.evaluate(createFacts("twoDefined")))));
+    }
+
+    @Test
+    public void testInvalidImmutableValue() {
+        final String xml = "<decision-tree><input-types><boolean-type name=\"flag\"/></input-types>"
+                + "<result-type class=\"com.abyala.decisiontree.SimpleStringResult\" immutable=\"yes\"><text-attribute name=\"value\"/></result-type>"
+                + "<tree><flag value=\"true\"><result value=\"a\"/></flag><flag value=\"false\"><result value=\"b\"/></flag></tree></decision-tree>";
+        try {
+            new SimpleDecisionTreeParser().parse(new StringReader(xml));
+            fail("Should have rejected an immutable value other than true or false");
+        } catch (DecisionTreeParserException e) {
+            assertThat(e.getMessage(), containsString("yes"));
+        }
+    }
+
+    private DecisionTreeFacts createFacts(final String input) {
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("fooInput", input);
+        return facts;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.results;
+
+import com.abyala.decisiontree.DecisionTree;
+import com.abyala.decisiontree.SimpleDecisionTreeFacts;
+import com.abyala.decisiontree.SimpleDecisionTreeParser;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ResultClassLoadingTest {
+    private static final String UNKNOWN = "com.abyala.decisiontree.results.UnknownResult";
+
+    private ClassLoader previousLoader;
+
+    @Before
+    public void saveContextLoader() {
+        previousLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void restoreContextLoader() {
+        Thread.currentThread().setContextClassLoader(previousLoader);
+    }
+
+    @Test
+    public void testContextLoaderIsSearchedFirst() throws Exception {
+        // Defines its own copy of the result class, so the copy is only used if the context loader is asked first
+        final ClassLoader contextLoader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+                if (!DefaultTestResult.class.getName().equals(name)) {
+                    return super.loadClass(name, resolve);
+                }
+                synchronized (getClassLoadingLock(name)) {
+                    final Class<?> loaded = findLoadedClass(name);
+                    return loaded != null ? loaded : defineCopy(name);
+                }
+            }
+
+            private Class<?> defineCopy(final String name) throws ClassNotFoundException {
+                try {
+                    final InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+                    try {
+                        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        final byte[] buffer = new byte[4096];
+                        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                            bytes.write(buffer, 0, read);
+                        }
+                        return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+                    } finally {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        };
+        Thread.currentThread().setContextClassLoader(contextLoader);
+
+        final Object result = evaluate(DefaultTestResult.class.getName());
+        assertThat(result.getClass().getName(), equalTo(DefaultTestResult.class.getName()));
+        assertThat(result.getClass().getClassLoader(), sameInstance(contextLoader));
+        assertThat(result.getClass().getMethod("getMemo").invoke(result), equalTo((Object) "yes"));
+    }
+
+    @Test
+    public void testFallsBackToParserLoader() throws DecisionTreeParserException, InvalidFactException {
+        Thread.currentThread().setContextClassLoader(new ClassLoader(null) {
+        });
+        assertThat(evaluate(DefaultTestResult.class.getName()), instanceOf(DefaultTestResult.class));
+
+        Thread.currentThread().setContextClassLoader(null);
+        assertThat(evaluate(DefaultTestResult.class.getName()), instanceOf(DefaultTestResult.class));
+    }
+
+    @Test(expected = DecisionTreeParserException.class)
+    public void testUnknownClass() throws DecisionTreeParserException, InvalidFactException {
+        evaluate(UNKNOWN);
+    }
+
+    private Object evaluate(final String className) throws DecisionTreeParserException, InvalidFactException {
+        final String xml = "<decision-tree><input-types><boolean-type name=\"flag\"/></input-types>"
+                + "<result-type class=\"" + className + "\"><text-attribute name=\"memo\" default=\"none\"/></result-type>"
+                + "<tree><flag value=\"true\"><result memo=\"yes\"/></flag><flag value=\"false\"><result/></flag></tree></decision-tree>";
+        final DecisionTree tree = new SimpleDecisionTreeParser().parse(new StringReader(xml));
+        final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+        facts.put("flag", true);
+        return tree.evaluate(facts);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.results;
+
+import com.abyala.decisiontree.SimpleDecisionTreeParser;
+import com.abyala.decisiontree.nodes.ResultNode;
+
+import java.io.StringReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Compares the ways ResultSpec and its attributes can create a result and set its values: the lambdas bound
+ * through LambdaMetafactory that the library uses, method handles held in fields that it falls back to, and
+ * plain reflection, each called from the same loop. Also times the library's own path through the spec and
+ * its attributes, and a creator call through the spreading handle against calling the constructor directly.
+ * Not a unit test; run it directly:
+ * <pre>
+ *   java -cp build/classes/test:build/classes/main com.abyala.decisiontree.results.ResultCreationBenchmark
+ * </pre>
+ *
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ResultCreationBenchmark {
+    private static final int RESULTS = 1 << 16;
+    private static final int ROUNDS = 20;
+
+    private final Supplier<Object> constructorFunction;
+    private final BiConsumer<Object, Object>[] setterFunctions;
+    private final MethodHandle constructorHandle;
+    private final Constructor<DefaultTestResult> constructor;
+    private final MethodHandle[] setterHandles;
+    private final Method[] setters;
+    private final ResultSpec spec;
+    private final ResultSpec creatorSpec;
+    private final Object[] values;
+    private final Object[] creatorArguments;
+
+    public static void main(final String[] args) throws Throwable {
+        new ResultCreationBenchmark().run();
+    }
+
+    private ResultCreationBenchmark() throws Exception {
+        final String xml = "<decision-tree><input-types><boolean-type name=\"flag\"/></input-types>"
+                + "<result-type class=\"%s\">%s</result-type>"
+                + "<tree><flag value=\"true\"><result %s/></flag><flag value=\"false\"><result %3$s/></flag></tree></decision-tree>";
+        final ResultNode leaf = new SimpleDecisionTreeParser().parse(new StringReader(String.format(xml, DefaultTestResult.class.getName(),
+                "<string-attribute name=\"string\"><value>foo</value></string-attribute><boolean-attribute name=\"bool\"/>"
+                        + "<text-attribute name=\"memo\"/><integer-attribute name=\"num\"/>",
+                "string=\"foo\" bool=\"true\" memo=\"memo\" num=\"5\""))).getLeaf(0);
+        spec = leaf.getSpec();
+        values = new Object[spec.getAttributeCount()];
+        setters = new Method[values.length];
+        setterHandles = new MethodHandle[values.length];
+        setterFunctions = newSetterFunctions(values.length);
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            values[ordinal] = leaf.getValue(ordinal);
+            setters[ordinal] = spec.getAttribute(ordinal).getSetter();
+            setterHandles[ordinal] = MethodHandles.publicLookup().unreflect(setters[ordinal])
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            setterFunctions[ordinal] = ResultAccessors.bindSetter(setters[ordinal]);
+        }
+        constructorFunction = ResultAccessors.bindConstructor(DefaultTestResult.class);
+        constructor = DefaultTestResult.class.getDeclaredConstructor();
+        constructorHandle = MethodHandles.publicLookup().findConstructor(DefaultTestResult.class, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+
+        final ResultNode creatorLeaf = new SimpleDecisionTreeParser().parse(new StringReader(String.format(xml, CreatedResult.class.getName(),
+                "<text-attribute name=\"label\"/><integer-attribute name=\"score\"/>", "label=\"yes\" score=\"10\""))).getLeaf(0);
+        creatorSpec = creatorLeaf.getSpec();
+        final int[] ordinals = creatorSpec.getCreatorOrdinals();
+        creatorArguments = new Object[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            creatorArguments[i] = creatorLeaf.getValue(ordinals[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object>[] newSetterFunctions(final int length) {
+        return new BiConsumer[length];
+    }
+
+    private void run() throws Throwable {
+        long library = Long.MAX_VALUE, lambda = Long.MAX_VALUE, handle = Long.MAX_VALUE, reflection = Long.MAX_VALUE, creator = Long.MAX_VALUE, direct = Long.MAX_VALUE;
+        long librarySum = 0, lambdaSum = 0, handleSum = 0, reflectionSum = 0, creatorSum = 0, directSum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < RESULTS; i++) {
+                final Object result = spec.newInstance();
+                for (int ordinal = 0; ordinal < values.length; ordinal++) {
+                    spec.getAttribute(ordinal).applyTo(result, values[ordinal]);
+                }
+                librarySum += ((DefaultTestResult) result).getNum();
+            }
+            library = Math.min(library, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < RESULTS; i++) {
+                final Object result = constructorFunction.get();
+                for (int ordinal = 0; ordinal < values.length; ordinal++) {
+                    setterFunctions[ordinal].accept(result, values[ordinal]);
+                }
+                lambdaSum += ((DefaultTestResult) result).getNum();
+            }
+            lambda = Math.min(lambda, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < RESULTS; i++) {
+                final Object result = constructorHandle.invokeExact();
+                for (int ordinal = 0; ordinal < values.length; ordinal++) {
+                    setterHandles[ordinal].invokeExact(result, values[ordinal]);
+                }
+                handleSum += ((DefaultTestResult) result).getNum();
+            }
+            handle = Math.min(handle, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < RESULTS; i++) {
+                final Object result = constructor.newInstance();
+                for (int ordinal = 0; ordinal < values.length; ordinal++) {
+                    setters[ordinal].invoke(result, values[ordinal]);
+                }
+                reflectionSum += ((DefaultTestResult) result).getNum();
+            }
+            reflection = Math.min(reflection, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < RESULTS; i++) {
+                creatorSum += ((CreatedResult) creatorSpec.create(creatorArguments)).score;
+            }
+            creator = Math.min(creator, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < RESULTS; i++) {
+                directSum += new CreatedResult((String) creatorArguments[0], (Integer) creatorArguments[1]).score;
+            }
+            direct = Math.min(direct, System.nanoTime() - start);
+        }
+
+        if (librarySum != lambdaSum || lambdaSum != handleSum || lambdaSum != reflectionSum || creatorSum != directSum) {
+            throw new IllegalStateException("Results disagree");
+        }
+        System.out.println(String.format("%12s %12s %12s %12s %12s %12s", "library ns", "lambda ns", "handle ns", "reflect ns", "creator ns", "direct ns"));
+        System.out.println(String.format("%12.2f %12.2f %12.2f %12.2f %12.2f %12.2f", (double) library / RESULTS, (double) lambda / RESULTS, (double) handle / RESULTS,
+                (double) reflection / RESULTS, (double) creator / RESULTS, (double) direct / RESULTS));
+    }
+
+    public static class CreatedResult {
+        private final String label;
+        private final int score;
+
+        public CreatedResult(@com.abyala.decisiontree.ResultField(name = "label") final String label, @com.abyala.decisiontree.ResultField(name = "score") final int score) {
+            this.label = label;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.results;
+
+import com.abyala.decisiontree.SimpleStringResult;
+import com.abyala.decisiontree.exceptions.DecisionTreeParserException;
+import com.abyala.decisiontree.nodes.ResultNode;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class ResultSpecTest {
+    @Test
+    public void testBoundConstructorAndSetter() throws NoSuchMethodException {
+        final ResultAttribute attribute = new TextResultAttribute.Builder("value", SimpleStringResult.class.getMethod("setValue", String.class)).build();
+        final ResultSpec spec = new ResultSpec.Builder(SimpleStringResult.class).addAttribute(attribute).build();
+
+        final Object result = spec.newInstance();
+        assertThat(result, instanceOf(SimpleStringResult.class));
+        assertThat(spec.newInstance(), not(sameInstance(result)));
+
+        attribute.applyTo(result, "applied");
+        assertThat(((SimpleStringResult) result).getValue(), equalTo("applied"));
+    }
+
+    @Test
+    public void testWrongValueType() throws NoSuchMethodException {
+        final ResultAttribute attribute = new TextResultAttribute.Builder("value", SimpleStringResult.class.getMethod("setValue", String.class)).build();
+        try {
+            attribute.applyTo(new SimpleStringResult(), 5);
+            fail("Should have rejected an integer for a string setter");
+        } catch (ClassCastException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOrdinalsAndTypedValues() throws NoSuchMethodException, DecisionTreeParserException {
+        final ResultSpec spec = new ResultSpec.Builder(DefaultTestResult.class)
+                .addAttribute(new IntegerResultAttribute.Builder("num", DefaultTestResult.class.getMethod("setNum", Integer.class)).setDefaultValue(-1).build())
+                .addAttribute(new TextResultAttribute.Builder("memo", DefaultTestResult.class.getMethod("setMemo", String.class)).build())
+                .build();
+        assertThat(spec.getAttributeCount(), equalTo(2));
+        assertThat(spec.getOrdinal("num"), equalTo(0));
+        assertThat(spec.getOrdinal("memo"), equalTo(1));
+        assertThat(spec.getOrdinal("missing"), equalTo(-1));
+        assertThat(spec.getAttribute(1).getName(), equalTo("memo"));
+
+        final ResultNode defaults = new ResultNode.Builder(spec).build();
+        assertThat((Integer) defaults.getValue(0), equalTo(-1));
+        assertThat(defaults.getValue("memo"), nullValue());
+
+        final ResultNode node = new ResultNode.Builder(spec).addAttribute("num", "42").addAttribute("memo", "note").build();
+        assertThat(node.getValue("num"), instanceOf(Integer.class));
+        assertThat((Integer) node.getValue("num"), equalTo(42));
+        assertThat((String) node.getValue(1), equalTo("note"));
+        assertThat(node.getValue("missing"), nullValue());
+
+        final DefaultTestResult result = (DefaultTestResult) node.createResult();
+        assertThat(result.getNum(), equalTo(42));
+        assertThat(result.getMemo(), equalTo("note"));
+    }
+}
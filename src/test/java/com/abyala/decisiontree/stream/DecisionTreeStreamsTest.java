@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2012 Andrew Byala
+ *
+ * This file is part of DecisionTree.
+ *
+ * DecisionTree is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * DecisionTree is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with DecisionTree.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.abyala.decisiontree.stream;
+
+import com.abyala.decisiontree.AbstractDecisionTreeTest;
+import com.abyala.decisiontree.DecisionTreeFacts;
+import com.abyala.decisiontree.SimpleDecisionTreeFacts;
+import com.abyala.decisiontree.SimpleStringResult;
+import com.abyala.decisiontree.exceptions.InvalidFactException;
+import com.abyala.decisiontree.exceptions.MissingFactException;
+import com.abyala.decisiontree.exceptions.UncheckedInvalidFactException;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * User: abyala
+ * Date: 10/18/26
+ */
+public class DecisionTreeStreamsTest extends AbstractDecisionTreeTest {
+    private static final int COUNT = 500;
+
+    @Override
+    protected String getFileLocation() {
+        return "src" + File.separator + "test" + File.separator + "resources" + File.separator + "testMixedTypes.xml";
+    }
+
+    @Test
+    public void testStream() {
+        validateResults(DecisionTreeStreams.evaluate(tree, createFacts().stream()).collect(Collectors.toList()));
+        validateResults(DecisionTreeStreams.evaluate(tree, createFacts().parallelStream()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testStreamErrors() {
+        final List<DecisionTreeFacts> facts = createFacts();
+        facts.set(100, new SimpleDecisionTreeFacts());
+        try {
+            DecisionTreeStreams.evaluate(tree, facts.stream()).collect(Collectors.toList());
+            fail("Should have rejected facts without a channel");
+        } catch (UncheckedInvalidFactException e) {
+            assertThat(e.getCause(), instanceOf(MissingFactException.class));
+        }
+    }
+
+    @Test
+    public void testProcessor() throws Exception {
+        validateResults(process(new DecisionTreeProcessor.Builder(tree).setBatchSize(1).setParallelism(1).build(), createFacts()));
+        validateResults(process(new DecisionTreeProcessor.Builder(tree).setBatchSize(7).setParallelism(4).setMaxBufferCapacity(4).build(), createFacts()));
+        validateResults(process(DecisionTreeStreams.processor(tree), createFacts()));
+    }
+
+    @Test
+    public void testProcessorBoundsDemand() {
+        final DecisionTreeProcessor processor = new DecisionTreeProcessor.Builder(tree).setBatchSize(8).setParallelism(2).build();
+        final long[] requested = new long[1];
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+                requested[0] += n;
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        assertThat(requested[0], equalTo(16L));
+    }
+
+    @Test
+    public void testProcessorFlushesPartialBatch() throws Exception {
+        final DecisionTreeProcessor processor = new DecisionTreeProcessor.Builder(tree).setBatchSize(100).setParallelism(2)
+                .setMaxLinger(5, TimeUnit.MILLISECONDS).build();
+        final List<DecisionTreeFacts> facts = createFacts().subList(0, 3);
+        final List<Object> results = Collections.synchronizedList(new ArrayList<Object>());
+        final CountDownLatch latch = new CountDownLatch(facts.size());
+        processor.consume(new Consumer<Object>() {
+            @Override
+            public void accept(final Object result) {
+                results.add(result);
+                latch.countDown();
+            }
+        });
+
+        // Upstream stays open, so only the linger timeout can release the batch
+        final SubmissionPublisher<DecisionTreeFacts> publisher = new SubmissionPublisher<DecisionTreeFacts>(ForkJoinPool.commonPool(), 16);
+        publisher.subscribe(processor);
+        for (DecisionTreeFacts fact : facts) {
+            publisher.submit(fact);
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        for (int i = 0; i < facts.size(); i++) {
+            final SimpleStringResult expected = (SimpleStringResult) tree.evaluate(facts.get(i));
+            assertThat(((SimpleStringResult) results.get(i)).getValue(), equalTo(expected.getValue()));
+        }
+        publisher.close();
+    }
+
+    @Test
+    public void testProcessorErrors() throws Exception {
+        final List<DecisionTreeFacts> facts = createFacts();
+        facts.set(100, new SimpleDecisionTreeFacts());
+        try {
+            process(new DecisionTreeProcessor.Builder(tree).setBatchSize(10).setParallelism(3).build(), facts);
+            fail("Should have rejected facts without a channel");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(MissingFactException.class));
+        }
+
+        try {
+            new DecisionTreeProcessor.Builder(tree).setBatchSize(0).build();
+            fail("Should have rejected a batch size of zero");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            new DecisionTreeProcessor.Builder(tree).setMaxLinger(-1, TimeUnit.MILLISECONDS).build();
+            fail("Should have rejected a negative linger");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private List<Object> process(final DecisionTreeProcessor processor, final List<DecisionTreeFacts> facts) throws Exception {
+        final List<Object> results = Collections.synchronizedList(new ArrayList<Object>());
+        final CompletableFuture<Void> done = processor.consume(new Consumer<Object>() {
+            @Override
+            public void accept(final Object result) {
+                results.add(result);
+            }
+        });
+
+        final SubmissionPublisher<DecisionTreeFacts> publisher = new SubmissionPublisher<DecisionTreeFacts>(ForkJoinPool.commonPool(), 16);
+        publisher.subscribe(processor);
+        for (DecisionTreeFacts fact : facts) {
+            publisher.submit(fact);
+        }
+        publisher.close();
+
+        done.get(10, TimeUnit.SECONDS);
+        return results;
+    }
+
+    private List<DecisionTreeFacts> createFacts() {
+        final Random random = new Random(3);
+        final String[] channels = {"Aa", "BB", "web", "other"};
+        final List<DecisionTreeFacts> result = new ArrayList<DecisionTreeFacts>();
+        for (int i = 0; i < COUNT; i++) {
+            final SimpleDecisionTreeFacts facts = new SimpleDecisionTreeFacts();
+            facts.put("channel", channels[random.nextInt(channels.length)]);
+            facts.put("member", random.nextBoolean());
+            facts.put("amount", random.nextInt(2000));
+            result.add(facts);
+        }
+        return result;
+    }
+
+    private void validateResults(final List<Object> results) {
+        final List<DecisionTreeFacts> facts = createFacts();
+        assertThat(results.size(), equalTo(facts.size()));
+        try {
+            for (int i = 0; i < facts.size(); i++) {
+                final SimpleStringResult expected = (SimpleStringResult) tree.evaluate(facts.get(i));
+                assertThat(((SimpleStringResult) results.get(i)).getValue(), equalTo(expected.getValue()));
+            }
+        } catch (InvalidFactException e) {
+            throw new AssertionError(e);
+        }
+    }
+}